@@ -24,9 +24,32 @@ import net.kissenpvp.visual.api.entity.VisualEntity;
 import net.kissenpvp.visual.api.rank.VisualRank;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.UUID;
+
 public interface Visual {
 
     <T extends ServerEntity> VisualEntity<T> getEntity(@NotNull T serverEntity);
 
     @NotNull VisualRank getRankData(@NotNull Rank rank);
+
+    /**
+     * Registers an additional name the specified player can be mentioned by in the chat.
+     *
+     * <p>Mentions of the alias are highlighted with the name of the player. Names and display names of other players
+     * take precedence over the alias. The alias is applied at the end of the current tick.</p>
+     *
+     * @param uuid  the unique id of the player
+     * @param alias the alias of the player
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    void addMentionAlias(@NotNull UUID uuid, @NotNull String alias);
+
+    /**
+     * Removes an alias registered using {@link #addMentionAlias(UUID, String)}.
+     *
+     * @param uuid  the unique id of the player
+     * @param alias the alias to remove
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    void removeMentionAlias(@NotNull UUID uuid, @NotNull String alias);
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.api.theme;
+
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The roles of the sentinel colors provided by the {@link ThemeProvider}.
+ *
+ * <p>Each role stands for one color of a {@link Theme}. Components colored with the sentinel color of a role are
+ * recolored with the matching theme color when styled. Every role has a single bit, so sets of roles can be passed
+ * around as an {@code int} mask without allocating.</p>
+ *
+ * @see ThemeProvider#roleOf(int)
+ * @see ThemeProvider#mask(int)
+ */
+public enum SentinelRole
+{
+    PRIMARY,
+    SECONDARY,
+    GENERAL,
+    ENABLED,
+    DISABLED;
+
+    /**
+     * The mask containing every role.
+     */
+    public static final int ALL = (1 << values().length) - 1;
+
+    /**
+     * Returns the bit of this role.
+     *
+     * @return the bit representing this role in a mask
+     */
+    public int bit()
+    {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the sentinel color of this role.
+     *
+     * @return the {@link TextColor} standing for this role
+     */
+    public @NotNull TextColor color()
+    {
+        return ThemeProvider.color(this);
+    }
+
+    /**
+     * Builds a mask of the specified roles.
+     *
+     * @param roles the roles to include
+     * @return the mask containing the bits of the roles
+     * @throws NullPointerException if any of the roles are `null`
+     */
+    public static int mask(@NotNull SentinelRole @NotNull ... roles)
+    {
+        int mask = 0;
+        for (SentinelRole role : roles)
+        {
+            mask |= role.bit();
+        }
+        return mask;
+    }
+
+    /**
+     * Checks whether the specified mask contains this role.
+     *
+     * @param mask the mask to check
+     * @return {@code true} if the bit of this role is set in the mask
+     */
+    public boolean in(int mask)
+    {
+        return (mask & bit()) != 0;
+    }
+}
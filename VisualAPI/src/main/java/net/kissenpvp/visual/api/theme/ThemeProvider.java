@@ -20,12 +20,11 @@ package net.kissenpvp.visual.api.theme;
 
 import net.kyori.adventure.text.format.TextColor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 public class ThemeProvider {
 
@@ -35,6 +34,30 @@ public class ThemeProvider {
     private static final TextColor ENABLED = net.kyori.adventure.text.format.TextColor.color(10111097);
     private static final TextColor DISABLED = net.kyori.adventure.text.format.TextColor.color(100105115);
 
+    /*
+     * The sentinel colors indexed by the ordinal of their role, and a tiny open-addressing table mapping their RGB
+     * values to their roles. Both are built once and never modified.
+     */
+    private static final TextColor[] COLORS = {PRIMARY, SECONDARY, GENERAL, ENABLED, DISABLED};
+    private static final SentinelRole[] ROLES = SentinelRole.values();
+    private static final int EMPTY = -1;
+    private static final int[] KEYS = new int[16];
+    private static final SentinelRole[] SLOTS = new SentinelRole[KEYS.length];
+    private static final int MASK = KEYS.length - 1;
+
+    static {
+        Arrays.fill(KEYS, EMPTY);
+        for (SentinelRole role : ROLES) {
+            int value = COLORS[role.ordinal()].value();
+            int slot = slot(value);
+            while (KEYS[slot] != EMPTY) {
+                slot = (slot + 1) & MASK;
+            }
+            KEYS[slot] = value;
+            SLOTS[slot] = role;
+        }
+    }
+
     public static TextColor primary() {
         return PRIMARY;
     }
@@ -55,19 +78,97 @@ public class ThemeProvider {
         return DISABLED;
     }
 
+    /**
+     * Returns the sentinel color of the specified role.
+     *
+     * @param role the {@link SentinelRole} to get the color of
+     * @return the sentinel {@link TextColor} of the role
+     * @throws NullPointerException if the role is `null`
+     */
+    public static @NotNull TextColor color(@NotNull SentinelRole role) {
+        return COLORS[role.ordinal()];
+    }
+
+    /**
+     * Looks up the role of the specified RGB value without allocating.
+     *
+     * @param rgb the RGB value to look up, bits above the lower 24 are ignored
+     * @return the {@link SentinelRole} of the value, or {@code null} if it is not a sentinel color
+     */
+    public static @Nullable SentinelRole roleOf(int rgb) {
+        int value = rgb & 0xffffff;
+        for (int slot = slot(value); KEYS[slot] != EMPTY; slot = (slot + 1) & MASK) {
+            if (KEYS[slot] == value) {
+                return SLOTS[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the role of the specified color without allocating.
+     *
+     * @param color the {@link TextColor} to look up
+     * @return the {@link SentinelRole} of the color, or {@code null} if it is not a sentinel color
+     * @throws NullPointerException if the color is `null`
+     */
+    public static @Nullable SentinelRole roleOf(@NotNull TextColor color) {
+        return roleOf(color.value());
+    }
+
+    /**
+     * Checks whether the specified RGB value is a sentinel color.
+     *
+     * @param rgb the RGB value to check
+     * @return {@code true} if the value belongs to any {@link SentinelRole}
+     */
+    public static boolean isSentinel(int rgb) {
+        return roleOf(rgb) != null;
+    }
+
+    /**
+     * Returns the role of the specified RGB value as a mask.
+     *
+     * @param rgb the RGB value to look up
+     * @return the {@link SentinelRole#bit()} of the role, or {@code 0} if the value is not a sentinel color
+     * @see SentinelRole#mask(SentinelRole...)
+     */
+    public static int mask(int rgb) {
+        SentinelRole role = roleOf(rgb);
+        return role == null ? 0:role.bit();
+    }
+
+    /**
+     * Checks whether the specified RGB value is the sentinel color of any role in the mask.
+     *
+     * @param rgb  the RGB value to check
+     * @param mask the mask of accepted roles
+     * @return {@code true} if the value is a sentinel color whose role is part of the mask
+     * @see SentinelRole#mask(SentinelRole...)
+     */
+    public static boolean matches(int rgb, int mask) {
+        return (mask(rgb) & mask) != 0;
+    }
+
     public static @NotNull TextColor @NotNull [] values()
     {
-        //noinspection SuspiciousToArrayCall
-        return Arrays.stream(ThemeProvider.class.getDeclaredFields()).filter(field -> field.getType().equals(TextColor.class)).map(field -> {
-            try {
-                return field.get(null);
-            } catch (IllegalAccessException ignored) { return null; }
-        }).filter(Objects::nonNull).toList().toArray(new TextColor[0]);
+        return COLORS.clone();
     }
 
     public static @NotNull Optional<TextColor> getColor(@NotNull Predicate<TextColor> predicate)
     {
-        return Stream.of(values()).filter(predicate).findFirst();
+        for (TextColor color : COLORS)
+        {
+            if (predicate.test(color))
+            {
+                return Optional.of(color);
+            }
+        }
+        return Optional.empty();
     }
 
+    private static int slot(int value) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & MASK;
+    }
 }
@@ -18,6 +18,7 @@
 
 plugins {
     java
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "net.kissenpvp"
@@ -29,6 +30,14 @@ dependencies {
     compileOnly("io.netty:netty-handler:4.1.68.Final")
 
     implementation(project(":VisualAPI"))
+
+    testImplementation("net.kissenpvp.pulvinar:pulvinar-api:1.21.1-R0.1-SNAPSHOT")
+    jmh("net.kissenpvp.pulvinar:pulvinar-api:1.21.1-R0.1-SNAPSHOT")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
 }
 
 tasks.processResources {
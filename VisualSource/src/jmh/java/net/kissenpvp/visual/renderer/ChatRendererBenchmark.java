@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the chat path of the {@link KissenChatRenderer}.
+ *
+ * <p>The {@code ChatRendererBenchmark} drives the renderer with stubbed players and viewers, so no server is required.
+ * The roster is filled with the configured amount of online players and the message contains the configured amount of
+ * mentions. Run it using {@code ./gradlew :VisualSource:jmh}, which also reports the allocation rate using the gc
+ * profiler.</p>
+ *
+ * @see KissenChatRenderer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatRendererBenchmark {
+
+    private static final String[] WORDS = {"hello", "there", "anyone", "up", "for", "a", "round", "of", "bedwars", "gg"};
+
+    @Param({"10", "100", "500", "2000"})
+    private int players;
+
+    @Param({"16", "64", "256"})
+    private int messageLength;
+
+    @Param({"0", "1", "4"})
+    private int mentions;
+
+    private KissenChatRenderer renderer;
+    private ChatRoster.Snapshot snapshot;
+    private Player sender;
+    private Audience viewer;
+    private Component message;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        renderer = new KissenChatRenderer(false);
+
+        List<ChatRoster.Entry> entries = new ArrayList<>(players);
+        List<Player> stubs = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            String name = "Player" + i;
+            UUID uuid = new UUID(0, i);
+            Component styledName = Component.text(name, NamedTextColor.GOLD);
+            Component chatPrefix = styledName.appendSpace().append(Component.text("»", NamedTextColor.GRAY)).appendSpace();
+            entries.add(new ChatRoster.Entry(name, "Nick" + i, uuid, NamedTextColor.WHITE, true, styledName, chatPrefix));
+            stubs.add(stub(Player.class, name, uuid));
+        }
+        renderer.getRoster().publishEntries(entries);
+
+        snapshot = renderer.getRoster().getSnapshot();
+        snapshot.matcher(); // build the matcher outside of the measurement
+        sender = stubs.getFirst();
+        viewer = stub(Audience.class, "viewer", new UUID(1, 0));
+        message = Component.text(message(random, entries));
+    }
+
+    @Benchmark
+    public @NotNull Component render() {
+        return renderer.render(sender, Component.text(sender.getName()), message, viewer);
+    }
+
+    @Benchmark
+    public @NotNull Component pingPlayer() {
+        return renderer.pingPlayer(snapshot, message);
+    }
+
+    @Benchmark
+    public @NotNull Component alterComponent() {
+        return renderer.alterComponent(message, snapshot, new HashSet<>());
+    }
+
+    /**
+     * Generates a message of roughly the configured length containing the configured amount of mentions.
+     *
+     * @param random  the {@link Random} used to pick the words and mentioned players
+     * @param entries the entries of the online players
+     * @return the generated message
+     */
+    private @NotNull String message(@NotNull Random random, @NotNull List<ChatRoster.Entry> entries) {
+        List<String> words = new ArrayList<>();
+        int length = 0;
+        while (length < messageLength) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            words.add(word);
+            length += word.length() + 1;
+        }
+
+        for (int i = 0; i < mentions; i++) {
+            String name = entries.get(random.nextInt(entries.size())).name();
+            words.set(random.nextInt(words.size()), name);
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Creates a stub of the specified interface which only answers identity related calls.
+     *
+     * @param type the interface to stub
+     * @param name the name returned by the stub
+     * @param uuid the unique id returned by the stub
+     * @param <T>  the type of the interface
+     * @return the stub
+     * @throws UnsupportedOperationException when any other method of the stub is called
+     */
+    private static <T> @NotNull T stub(@NotNull Class<T> type, @NotNull String name, @NotNull UUID uuid) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName", "toString" -> name;
+            case "getUniqueId" -> uuid;
+            case "hashCode" -> uuid.hashCode();
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return type.cast(stub);
+    }
+}
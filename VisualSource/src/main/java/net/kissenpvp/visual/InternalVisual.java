@@ -46,15 +46,20 @@ import net.kissenpvp.visual.playersettings.KissenSystemPrefix;
 import net.kissenpvp.visual.rank.KissenVisualRank;
 import net.kissenpvp.visual.rank.KissenVisualRankFallBack;
 import net.kissenpvp.visual.rank.RankCommand;
+import net.kissenpvp.visual.renderer.ChatBatcher;
 import net.kissenpvp.visual.renderer.KissenChatRenderer;
 import net.kissenpvp.visual.renderer.KissenSystemMessageListener;
 import net.kissenpvp.visual.renderer.KissenTabRender;
+import net.kissenpvp.visual.renderer.StyleCache;
+import net.kissenpvp.visual.renderer.TabUpdateScheduler;
 import net.kissenpvp.visual.suffix.KissenSuffixSetting;
 import net.kissenpvp.visual.suffix.SuffixCommand;
 import net.kissenpvp.visual.theme.DefaultTheme;
+import net.kissenpvp.visual.theme.PlayerTheme;
 import net.kissenpvp.visual.theme.playersettings.*;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -84,6 +89,10 @@ public class InternalVisual extends JavaPlugin implements Visual
 {
 
     @Getter(AccessLevel.PROTECTED) private KissenTabRender tabRender;
+    @Getter private TabUpdateScheduler tabUpdateScheduler;
+    @Getter private KissenChatRenderer chatRenderer;
+    @Getter private ChatBatcher chatBatcher;
+    @Getter private StyleCache styleCache;
     @Getter private String defaultPrefix;
 
     /**
@@ -153,27 +162,55 @@ public class InternalVisual extends JavaPlugin implements Visual
     @Override public void onEnable()
     {
         tabRender = new KissenTabRender();
-        KissenChatRenderer kissenChatRenderer = new KissenChatRenderer();
+        tabUpdateScheduler = new TabUpdateScheduler(tabRender, getConfig().getInt("tab.join_batch_ticks", 5));
+        chatRenderer = new KissenChatRenderer(getConfig().getBoolean("chat.viewer_unaware", false));
+        chatRenderer.getRoster().publish(Bukkit.getOnlinePlayers());
+        chatBatcher = new ChatBatcher(getConfig().getBoolean("chat.batch.enabled", false),
+                getConfig().getInt("chat.batch.capacity", 512),
+                ChatBatcher.OverflowPolicy.parse(getConfig().getString("chat.batch.overflow", "drop_oldest")),
+                getConfig().getBoolean("chat.batch.shared_payload", false));
+        styleCache = new StyleCache(getConfig().getBoolean("system_messages.style_cache.enabled", true),
+                getConfig().getInt("system_messages.style_cache.max_entries", 1024),
+                getConfig().getLong("system_messages.style_cache.max_weight", 65536));
         PluginManager pluginManager = getServer().getPluginManager();
 
         // listener
-        EventListener<VisualChangeEvent> visualChangeEvent = (event) -> getTabRender().update();
-        EventListener<AsyncChatEvent> chatEvent = (event) -> event.renderer(kissenChatRenderer);
+        EventListener<VisualChangeEvent> visualChangeEvent = (event) ->
+        {
+            getChatRenderer().getRoster().markDirty(event.player());
+            getTabUpdateScheduler().markDirty(event.player());
+        };
+        EventListener<AsyncChatEvent> chatEvent = (event) ->
+        {
+            // batched messages notify the mentioned players once they are flushed
+            event.renderer(getChatRenderer().forMessage(!getChatBatcher().isEnabled()));
+        };
 
         EventListener<PlayerJoinEvent> joinEvent = (event) ->
         {
             Channel channel = event.getPlayer().getConnection();
             channel.pipeline().addBefore("packet_handler", "tamed_animals_team_handler", new TamableAnimalsHandler());
 
-            getTabRender().update();
+            getTabUpdateScheduler().markJoined(event.getPlayer());
+            getChatRenderer().getRoster().publish(event.getPlayer());
             event.joinMessage(getMessage(true, event.getPlayer()));
         };
-        EventListener<PlayerQuitEvent> quitEvent = (event) -> event.quitMessage(getMessage(false, event.getPlayer()));
+        EventListener<PlayerQuitEvent> quitEvent = (event) ->
+        {
+            getTabRender().remove(event.getPlayer());
+            getChatRenderer().getRoster().remove(event.getPlayer());
+            PlayerTheme.invalidate(event.getPlayer());
+            event.quitMessage(getMessage(false, event.getPlayer()));
+        };
         pluginManager.registerEvents(visualChangeEvent, this);
         pluginManager.registerEvents(chatEvent, this);
         pluginManager.registerEvents(joinEvent, this);
         pluginManager.registerEvents(quitEvent, this);
-        pluginManager.registerEvents(new KissenSystemMessageListener(), this);
+        pluginManager.registerEvents(new KissenSystemMessageListener(getStyleCache()), this);
+        pluginManager.registerEvents(getTabUpdateScheduler(), this);
+        pluginManager.registerEvents(getChatBatcher(), this);
+        pluginManager.registerEvents(getChatBatcher().getCaptureListener(), this);
+        pluginManager.registerEvents(getChatRenderer().getRoster(), this);
 
         // rank events
         pluginManager.registerEvents(rankEvent(RankPriorityChangeEvent.class), this);
@@ -245,6 +282,16 @@ public class InternalVisual extends JavaPlugin implements Visual
         return new KissenVisualEntity<>(entity);
     }
 
+    @Override public void addMentionAlias(@NotNull UUID uuid, @NotNull String alias)
+    {
+        getChatRenderer().getRoster().addAlias(uuid, alias);
+    }
+
+    @Override public void removeMentionAlias(@NotNull UUID uuid, @NotNull String alias)
+    {
+        getChatRenderer().getRoster().removeAlias(uuid, alias);
+    }
+
     /**
      * Triggers a visual change event for all online players with the specified rank.
      *
@@ -281,16 +328,33 @@ public class InternalVisual extends JavaPlugin implements Visual
      */
     public @NotNull Component getPrefix(@NotNull ServerEntity serverEntity)
     {
-        MiniMessage miniMessage = MiniMessage.miniMessage();
-
         VisualEntity<?> entity = getEntity(serverEntity);
 
-        String primary = entity.getTheme().getPrimaryColor().asHexString();
-        String secondary = entity.getTheme().getSecondaryColor().asHexString();
+        TextColor primary = entity.getTheme().getPrimaryColor();
+        TextColor secondary = entity.getTheme().getSecondaryColor();
+        return getPrefix(primary, secondary, getPersonalisedPrefix(serverEntity));
+    }
+
+    /**
+     * Generates a prefix from the specified colors and content.
+     *
+     * <p>The {@code getPrefix} method applies a gradient from the primary to the secondary color to the given prefix
+     * content using MiniMessage. As this method does not access any entity, it can be used to render prefixes from
+     * previously collected data.</p>
+     *
+     * @param primary   the color the gradient starts with
+     * @param secondary the color the gradient ends with
+     * @param prefix    the content of the prefix
+     * @return a {@link Component} representing the formatted prefix
+     * @throws NullPointerException if any of the parameters are `null`
+     * @see #getPrefix(ServerEntity)
+     */
+    public @NotNull Component getPrefix(@NotNull TextColor primary, @NotNull TextColor secondary, @NotNull String prefix)
+    {
         String gradientTemplate = "<gradient:%s:%s>%s</gradient>";
-        String prefix = gradientTemplate.formatted(primary, secondary, getPersonalisedPrefix(serverEntity));
+        String content = gradientTemplate.formatted(primary.asHexString(), secondary.asHexString(), prefix);
 
-        return MiniMessage.miniMessage().deserialize(prefix);
+        return MiniMessage.miniMessage().deserialize(content);
     }
 
     /**
@@ -308,7 +372,7 @@ public class InternalVisual extends JavaPlugin implements Visual
      * @see KissenSystemPrefix
      * @see #getDefaultPrefix()
      */
-    private @NotNull String getPersonalisedPrefix(@NotNull ServerEntity serverEntity)
+    public @NotNull String getPersonalisedPrefix(@NotNull ServerEntity serverEntity)
     {
         if (serverEntity instanceof PulvinarPlayerClient player)
         {
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.mention;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.*;
+
+/**
+ * Immutable multi-pattern matcher based on the Aho-Corasick automaton.
+ *
+ * <p>The {@code MentionMatcher} class finds all occurrences of all registered patterns in a single pass over the
+ * text, regardless of how many patterns are registered. Overlapping occurrences are resolved by preferring the one
+ * which starts first and, on equal starts, the longest one.</p>
+ *
+ * <p>Patterns and text are compared case-insensitively. An occurrence only counts if it is not part of a larger word,
+ * so a pattern starting or ending with a word character must not be preceded or followed by another word character.
+ * If several patterns fold to the same key, the one registered first wins.</p>
+ *
+ * @param <T> the type of the value associated with each pattern
+ * @see net.kissenpvp.visual.renderer.ChatRoster
+ */
+public final class MentionMatcher<T> {
+
+    private final Node<T> root;
+
+    /**
+     * Builds the automaton of the specified patterns.
+     *
+     * <p>The patterns are registered in the iteration order of the map, which decides between patterns folding to the
+     * same key.</p>
+     *
+     * @param patterns the patterns mapped to their associated values
+     * @throws NullPointerException if the map is `null`
+     */
+    public MentionMatcher(@NotNull Map<String, T> patterns) {
+        this.root = new Node<>(0);
+        patterns.forEach(this::insert);
+        link();
+    }
+
+    /**
+     * Finds all non-overlapping occurrences of the patterns in the specified text.
+     *
+     * @param text the text to search in
+     * @return the occurrences, ordered by their position in the text
+     * @throws NullPointerException if the text is `null`
+     */
+    public @NotNull @Unmodifiable List<Match<T>> find(@NotNull String text) {
+        List<Match<T>> matches = null;
+
+        Node<T> node = root;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, fold(text.charAt(i)));
+            for (Node<T> output = node.value != null ? node:node.output; output != null; output = output.output) {
+                int start = i + 1 - output.depth;
+                if (!isBoundary(text, start) || !isBoundary(text, i + 1)) {
+                    continue;
+                }
+                if (matches == null) {
+                    matches = new ArrayList<>();
+                }
+                matches.add(new Match<>(start, i + 1, output.value));
+            }
+        }
+
+        return matches == null ? List.of():resolveOverlaps(matches);
+    }
+
+    /**
+     * Checks whether this matcher contains any patterns.
+     *
+     * @return {@code true} if no pattern is registered, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return root.next.isEmpty();
+    }
+
+    /**
+     * Folds the specified character for case-insensitive comparison.
+     *
+     * <p>Characters are folded one by one, so the indices of the folded text match the ones of the original text.</p>
+     *
+     * @param character the character to fold
+     * @return the folded character
+     */
+    private static char fold(char character) {
+        return Character.toLowerCase(Character.toUpperCase(character));
+    }
+
+    /**
+     * Checks whether the specified index of the text is a valid boundary of an occurrence.
+     *
+     * <p>An index is a valid boundary unless the characters on both sides of it are word characters.</p>
+     *
+     * @param text  the text
+     * @param index the index between two characters
+     * @return {@code true} if an occurrence may start or end at the index, {@code false} otherwise
+     */
+    private static boolean isBoundary(@NotNull String text, int index) {
+        return index <= 0 || index >= text.length() || !isWordCharacter(text.charAt(index - 1)) || !isWordCharacter(text.charAt(index));
+    }
+
+    private static boolean isWordCharacter(char character) {
+        return Character.isLetterOrDigit(character) || character == '_';
+    }
+
+    private @NotNull Node<T> step(@NotNull Node<T> node, char character) {
+        while (true) {
+            Node<T> next = node.next.get(character);
+            if (next != null) {
+                return next;
+            }
+            if (node == root) {
+                return root;
+            }
+            node = node.fail;
+        }
+    }
+
+    private void insert(@NotNull String pattern, @NotNull T value) {
+        if (pattern.isEmpty()) {
+            return;
+        }
+
+        Node<T> node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            int depth = i + 1;
+            node = node.next.computeIfAbsent(fold(pattern.charAt(i)), (ignored) -> new Node<>(depth));
+        }
+        if (node.value == null) {
+            node.value = value;
+        }
+    }
+
+    /**
+     * Computes the failure and output links of all nodes in breadth-first order.
+     */
+    private void link() {
+        Deque<Node<T>> queue = new ArrayDeque<>();
+        for (Node<T> child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node<T> node = queue.poll();
+            for (Map.Entry<Character, Node<T>> entry : node.next.entrySet()) {
+                Node<T> child = entry.getValue();
+                child.fail = step(node.fail, entry.getKey());
+                child.output = child.fail.value != null ? child.fail:child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Picks the leftmost-longest non-overlapping matches.
+     *
+     * @param matches all matches found
+     * @return the picked matches, ordered by their position
+     */
+    private static <T> @NotNull @Unmodifiable List<Match<T>> resolveOverlaps(@NotNull List<Match<T>> matches) {
+        matches.sort(Comparator.<Match<T>>comparingInt(Match::start).thenComparing(Comparator.comparingInt(Match<T>::end).reversed()));
+
+        List<Match<T>> resolved = new ArrayList<>(matches.size());
+        int end = 0;
+        for (Match<T> match : matches) {
+            if (match.start() >= end) {
+                resolved.add(match);
+                end = match.end();
+            }
+        }
+        return Collections.unmodifiableList(resolved);
+    }
+
+    /**
+     * Occurrence of a pattern within a text.
+     *
+     * @param start the index of the first character, inclusive
+     * @param end   the index of the last character, exclusive
+     * @param value the value associated with the pattern
+     * @param <T>   the type of the value
+     */
+    public record Match<T>(int start, int end, @NotNull T value) { }
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> next = new HashMap<>();
+        private final int depth;
+        private Node<T> fail, output;
+        private T value;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.mention;
+
+import net.kissenpvp.visual.InternalVisual;
+import net.kissenpvp.visual.playersettings.KissenPlayPingSound;
+import org.bukkit.Bukkit;
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Notifies mentioned players about being mentioned.
+ *
+ * <p>The {@code MentionNotifier} class is invoked exactly once per delivered chat message, independent of the amount
+ * of viewers. It plays the ping sound for all mentioned players on the main thread, scheduling a single task if
+ * called from another thread. The caller is expected to only pass players who enabled the
+ * {@link KissenPlayPingSound} setting.</p>
+ *
+ * @see net.kissenpvp.visual.renderer.ChatRoster
+ */
+public class MentionNotifier {
+
+    /**
+     * Plays the ping sound for the specified players.
+     *
+     * <p>This method can be called from any thread. Off the main thread, the sounds are played in a task scheduled for
+     * the next tick.</p>
+     *
+     * @param mentioned the unique ids of the mentioned players who enabled the ping sound
+     * @throws NullPointerException if the collection is `null`
+     */
+    public void ping(@NotNull Collection<UUID> mentioned) {
+        InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+        if (mentioned.isEmpty() || !internalVisual.isEnabled()) {
+            return;
+        }
+
+        List<UUID> players = List.copyOf(mentioned);
+        Runnable ping = () -> players.stream().map(Bukkit::getPlayer).filter(Objects::nonNull).forEach(this::playSound);
+        if (Bukkit.isPrimaryThread()) {
+            ping.run();
+            return;
+        }
+        Bukkit.getScheduler().runTask(internalVisual, ping);
+    }
+
+    /**
+     * Plays the ping sound for the specified player.
+     *
+     * <p>This method must be called on the main thread.</p>
+     *
+     * @param player the {@link Player} to notify
+     * @throws NullPointerException if the player is `null`
+     */
+    private void playSound(@NotNull Player player) {
+        player.playSound(player, Sound.ENTITY_ARROW_HIT_PLAYER, .5f, 1f);
+    }
+}
@@ -19,9 +19,12 @@
 package net.kissenpvp.visual.playersettings;
 
 import net.kissenpvp.core.api.user.playersettting.UserValue;
+import net.kissenpvp.visual.InternalVisual;
 import net.kissenpvp.visual.api.playersetting.PlayPingSound;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class KissenPlayPingSound implements PlayPingSound {
 
@@ -49,4 +52,20 @@ public class KissenPlayPingSound implements PlayPingSound {
     public @NotNull Boolean deserialize(@NotNull String s) {
         return Boolean.parseBoolean(s);
     }
+
+    private static void rosterUpdate(@NotNull OfflinePlayer player) {
+        if (player instanceof Player actualPlayer) {
+            InternalVisual.getPlugin(InternalVisual.class).getChatRenderer().getRoster().markDirty(actualPlayer);
+        }
+    }
+
+    @Override
+    public void setValue(@NotNull OfflinePlayer player, @Nullable Boolean value) {
+        rosterUpdate(player);
+    }
+
+    @Override
+    public void reset(@NotNull OfflinePlayer player) {
+        rosterUpdate(player);
+    }
 }
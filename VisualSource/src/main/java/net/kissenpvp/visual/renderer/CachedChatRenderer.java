@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import io.papermc.paper.chat.ChatRenderer;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chat renderer reusing the rendered message for all viewers of the same equivalence class.
+ *
+ * <p>Paper invokes the renderer once per viewer of a message. The {@code CachedChatRenderer} class is created for a
+ * single chat event and asks the {@link KissenChatRenderer} for the fingerprint of each viewer. The message is
+ * rendered only once per distinct fingerprint, every other viewer receives the already rendered component.</p>
+ *
+ * <p>If enabled, the mentioned players are notified on the first render, which only happens if the message is
+ * actually delivered.</p>
+ *
+ * @see KissenChatRenderer#fingerprint(Audience)
+ */
+public class CachedChatRenderer implements ChatRenderer {
+
+    private final KissenChatRenderer renderer;
+    private final Map<Object, Component> rendered;
+    private final AtomicBoolean notify;
+
+    /**
+     * Constructs a new cached renderer for a single chat event.
+     *
+     * @param renderer the {@link KissenChatRenderer} rendering the message
+     * @param notify   whether the mentioned players are notified on the first render
+     * @throws NullPointerException if the renderer is `null`
+     */
+    public CachedChatRenderer(@NotNull KissenChatRenderer renderer, boolean notify) {
+        this.renderer = renderer;
+        this.rendered = new ConcurrentHashMap<>();
+        this.notify = new AtomicBoolean(notify);
+    }
+
+    @Override
+    public @NotNull Component render(@NotNull Player source, @NotNull Component sourceDisplayName, @NotNull Component message, @NotNull Audience viewer) {
+        if (notify.compareAndSet(true, false)) {
+            renderer.notifyMentions(message);
+        }
+
+        Object fingerprint = renderer.fingerprint(viewer);
+        return rendered.computeIfAbsent(fingerprint, (ignored) -> renderer.render(source, sourceDisplayName, message, viewer));
+    }
+}
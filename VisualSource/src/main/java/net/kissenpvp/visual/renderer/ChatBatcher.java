@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import com.destroystokyo.paper.ClientOption;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import io.papermc.paper.chat.ChatRenderer;
+import io.papermc.paper.event.player.AsyncChatEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import lombok.Getter;
+import net.kissenpvp.core.api.event.EventListener;
+import net.kissenpvp.visual.InternalVisual;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chat pipeline stage delivering rendered messages once per tick.
+ *
+ * <p>The {@code ChatBatcher} takes over the delivery of chat messages from the server. Each message is rendered on
+ * the asynchronous chat thread as soon as it arrives and is then put into a bounded queue, which is flushed to the
+ * viewers at the end of every tick. This way, a spike of hundreds of messages per second is delivered in one batch per
+ * tick instead of message by message.</p>
+ *
+ * <p>Messages are captured by the {@link #getCaptureListener() capture listener} at {@link EventPriority#MONITOR}
+ * priority, so only messages no other listener cancelled are batched. The batcher takes over the delivery to the
+ * players by removing them from the viewers of the event. The event itself is never cancelled, so all other listeners
+ * see the message as usual and the server still delivers it to the remaining viewers, like the console.</p>
+ *
+ * <p>Batched messages are delivered as unsigned system chat. The clients therefore neither hide messages of blocked
+ * players nor allow reporting them.</p>
+ *
+ * <p>If the queue is full, the configured {@link OverflowPolicy} decides which message is discarded. After each
+ * flush, the current queue depth, the average render latency and the amount of dropped, merged and flushed messages
+ * are reported at {@link Level#FINE}.</p>
+ *
+ * <p>If shared payloads are enabled, viewers receiving the same rendered component in the same locale get one
+ * pre-serialized system chat packet, which is written to each of their connections as a shared buffer.</p>
+ *
+ * @see KissenChatRenderer
+ * @see ServerTickEndEvent
+ */
+public class ChatBatcher implements EventListener<ServerTickEndEvent> {
+
+    @Getter private final boolean enabled;
+    @Getter private final int capacity;
+    @Getter private final OverflowPolicy overflowPolicy;
+    private final SystemChatEncoder encoder;
+    private final Deque<QueuedMessage> queue;
+    private final Map<Key, QueuedMessage> pending;
+    private final AtomicLong rendered, renderNanos, dropped, merged, flushed;
+    @Getter private final Listener captureListener;
+
+    /**
+     * Constructs a new chat batcher.
+     *
+     * @param enabled        whether the chat messages are batched at all
+     * @param capacity       the maximum amount of messages waiting for the next flush
+     * @param overflowPolicy the {@link OverflowPolicy} applied when the queue is full
+     * @param sharedPayload  whether viewers of the same component share one pre-serialized packet
+     * @throws NullPointerException if the overflow policy is `null`
+     */
+    public ChatBatcher(boolean enabled, int capacity, @NotNull OverflowPolicy overflowPolicy, boolean sharedPayload) {
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.encoder = enabled && sharedPayload ? createEncoder():null;
+        this.queue = new ArrayDeque<>();
+        this.pending = new HashMap<>();
+        this.rendered = new AtomicLong();
+        this.renderNanos = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.merged = new AtomicLong();
+        this.flushed = new AtomicLong();
+        this.captureListener = new CaptureListener();
+    }
+
+    /**
+     * Renders the message of the specified event for its players and queues it for the next flush.
+     *
+     * <p>The message is rendered once per viewing player using the {@link AsyncChatEvent#renderer() renderer} of the
+     * event, players receiving the same component are grouped together. The players are removed from the viewers of
+     * the event, as the message is delivered to them by this batcher instead. The event is not cancelled, so any other
+     * viewer, like the console, still receives the message from the server.</p>
+     *
+     * <p>As a queued message may still be dropped, the renderer of the event must not notify the mentioned players,
+     * this happens once the message is flushed.</p>
+     *
+     * <p>This method is thread-safe and meant to be called from the asynchronous chat threads. As no later listener
+     * must be able to cancel the message anymore, it should only be called at {@link EventPriority#MONITOR}
+     * priority, see {@link #getCaptureListener()}.</p>
+     *
+     * @param event the {@link AsyncChatEvent} whose players are taken over
+     * @throws NullPointerException if the event is `null`
+     * @see KissenChatRenderer#forMessage(boolean)
+     */
+    public void enqueue(@NotNull AsyncChatEvent event) {
+        Player source = event.getPlayer();
+        Component sourceDisplayName = source.displayName();
+        ChatRenderer renderer = event.renderer();
+
+        long start = System.nanoTime();
+        Map<Component, List<Player>> deliveries = new IdentityHashMap<>();
+        Iterator<Audience> viewers = event.viewers().iterator();
+        while (viewers.hasNext()) {
+            if (viewers.next() instanceof Player viewer) {
+                Component component = renderer.render(source, sourceDisplayName, event.message(), viewer);
+                deliveries.computeIfAbsent(component, (ignored) -> new ArrayList<>()).add(viewer);
+                viewers.remove();
+            }
+        }
+        renderNanos.addAndGet(System.nanoTime() - start);
+        rendered.incrementAndGet();
+
+        if (!deliveries.isEmpty()) {
+            offer(new QueuedMessage(new Key(source.getUniqueId(), event.message()), deliveries));
+        }
+    }
+
+    /**
+     * Adds the specified message to the queue, applying the overflow policy if required.
+     *
+     * @param message the {@link QueuedMessage} to add
+     */
+    private void offer(@NotNull QueuedMessage message) {
+        synchronized (queue) {
+            if (queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.MERGE_DUPLICATES) {
+                    QueuedMessage duplicate = pending.get(message.key);
+                    if (duplicate != null) {
+                        duplicate.count++;
+                        merged.incrementAndGet();
+                        return;
+                    }
+                }
+
+                QueuedMessage oldest = queue.pollFirst();
+                pending.remove(oldest.key, oldest);
+                dropped.incrementAndGet();
+            }
+            queue.addLast(message);
+            if (overflowPolicy == OverflowPolicy.MERGE_DUPLICATES) {
+                pending.put(message.key, message);
+            }
+        }
+    }
+
+    @Override
+    public void call(@NotNull ServerTickEndEvent event) {
+        List<QueuedMessage> batch;
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(queue);
+            queue.clear();
+            pending.clear();
+        }
+
+        KissenChatRenderer chatRenderer = InternalVisual.getPlugin(InternalVisual.class).getChatRenderer();
+        Set<Channel> channels = new HashSet<>();
+        for (QueuedMessage message : batch) {
+            Component suffix = message.count > 1 ? Component.text(" (x" + message.count + ")", NamedTextColor.DARK_GRAY) : null;
+            message.deliveries.forEach((component, viewers) -> {
+                Component delivered = suffix == null ? component:component.append(suffix);
+                deliver(delivered, viewers, channels);
+            });
+            chatRenderer.notifyMentions(message.key.message());
+        }
+        channels.forEach(Channel::flush);
+        flushed.addAndGet(batch.size());
+        report();
+    }
+
+    /**
+     * Reports the metrics of the batcher to the log of the plugin.
+     *
+     * <p>The queue depth, the average render latency and the amount of dropped, merged and flushed messages are logged
+     * at {@link Level#FINE}, the same way {@link KissenTabRender#reportTeams()} reports the tab teams.</p>
+     */
+    private void report() {
+        Logger logger = InternalVisual.getPlugin(InternalVisual.class).getLogger();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Chat batch: %d queued, %.3f ms average render latency, %d dropped, %d merged, %d flushed", getQueueDepth(), getAverageRenderLatency() / 1_000_000d, getDropped(), getMerged(), getFlushed()));
+        }
+    }
+
+    /**
+     * Sends the specified component to the specified viewers.
+     *
+     * <p>As the component is sent as system chat, the client would show it to players who only want to see command
+     * output. Players who did not set their chat visibility to {@code FULL} are therefore skipped.</p>
+     *
+     * <p>If shared payloads are enabled, the component is serialized once per locale of the viewing players and the
+     * resulting buffer is written to their channels without flushing them. If serializing fails, the players receive
+     * the component the regular way.</p>
+     *
+     * @param component the {@link Component} to send
+     * @param viewers   the {@link Player}s receiving the component
+     * @param channels  the set the written channels are added to, so they can be flushed afterwards
+     */
+    private void deliver(@NotNull Component component, @NotNull List<Player> viewers, @NotNull Set<Channel> channels) {
+        Map<Locale, List<Player>> locales = new HashMap<>();
+        for (Player player : viewers) {
+            // the message is sent as system chat, which the client shows unless chat is fully hidden
+            if (player.getClientOption(ClientOption.CHAT_VISIBILITY) != ClientOption.ChatVisibility.FULL) {
+                continue;
+            }
+            if (encoder != null) {
+                locales.computeIfAbsent(player.locale(), (ignored) -> new ArrayList<>()).add(player);
+                continue;
+            }
+            player.sendMessage(component);
+        }
+
+        locales.forEach((locale, players) -> {
+            ByteBuf payload;
+            try {
+                payload = encoder.encode(component, locale);
+            } catch (RuntimeException exception) {
+                players.forEach(player -> player.sendMessage(component));
+                return;
+            }
+
+            try {
+                for (Player player : players) {
+                    Channel channel = player.getConnection();
+                    channel.write(payload.retainedDuplicate());
+                    channels.add(channel);
+                }
+            } finally {
+                payload.release();
+            }
+        });
+    }
+
+    /**
+     * Creates the encoder for shared payloads.
+     *
+     * @return the {@link SystemChatEncoder}, or {@code null} if the server does not support it
+     */
+    private static @Nullable SystemChatEncoder createEncoder() {
+        try {
+            return new SystemChatEncoder();
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+            internalVisual.getLogger().warning("Shared chat payloads are not supported by this server, falling back to regular delivery: " + exception);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the amount of messages currently waiting for the next flush.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Returns the average time it took to render a message for all of its viewers.
+     *
+     * @return the average render latency in nanoseconds, or {@code 0} if no message has been rendered yet
+     */
+    public double getAverageRenderLatency() {
+        long total = rendered.get();
+        return total == 0 ? 0:(double) renderNanos.get() / total;
+    }
+
+    /**
+     * Returns the amount of messages discarded because the queue was full.
+     *
+     * @return the amount of dropped messages
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the amount of messages merged into an identical queued message.
+     *
+     * @return the amount of merged messages
+     */
+    public long getMerged() {
+        return merged.get();
+    }
+
+    /**
+     * Returns the amount of messages delivered so far.
+     *
+     * @return the amount of flushed messages
+     */
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    /**
+     * Policy deciding how the batcher reacts to more messages than fit into the queue.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discards the oldest queued message.
+         */
+        DROP_OLDEST,
+        /**
+         * Merges a message into an identical queued message of the same sender, which is then delivered with a
+         * counter. If no identical message is queued, the oldest queued message is discarded. As long as the queue is
+         * not full, identical messages are queued and delivered individually.
+         */
+        MERGE_DUPLICATES;
+
+        /**
+         * Parses the overflow policy from the configuration.
+         *
+         * @param value the configured value
+         * @return the matching {@link OverflowPolicy}, or {@link #DROP_OLDEST} if none matches
+         * @throws NullPointerException if the value is `null`
+         */
+        public static @NotNull OverflowPolicy parse(@NotNull String value) {
+            return Reflection.parseEnum(OverflowPolicy.class, value, DROP_OLDEST);
+        }
+    }
+
+    /**
+     * Captures chat messages after all other listeners had the chance to cancel them.
+     */
+    private final class CaptureListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onChat(@NotNull AsyncChatEvent event) {
+            if (enabled) {
+                enqueue(event);
+            }
+        }
+    }
+
+    /**
+     * Identifies identical messages of the same sender.
+     *
+     * @param source  the unique id of the sender
+     * @param message the original message
+     */
+    private record Key(@NotNull UUID source, @NotNull Component message) { }
+
+    /**
+     * Rendered message waiting for the next flush.
+     */
+    private static final class QueuedMessage {
+
+        private final Key key;
+        private final Map<Component, List<Player>> deliveries;
+        private int count;
+
+        private QueuedMessage(@NotNull Key key, @NotNull Map<Component, List<Player>> deliveries) {
+            this.key = key;
+            this.deliveries = deliveries;
+            this.count = 1;
+        }
+    }
+}
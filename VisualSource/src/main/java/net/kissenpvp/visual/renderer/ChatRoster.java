@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import net.kissenpvp.core.api.event.EventListener;
+import net.kissenpvp.visual.InternalVisual;
+import net.kissenpvp.visual.mention.MentionMatcher;
+import net.kissenpvp.visual.playersettings.KissenPlayPingSound;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Copy-on-write roster of the online players as seen by the chat.
+ *
+ * <p>The {@code ChatRoster} class keeps an immutable {@link Snapshot} of everything the asynchronous chat pipeline
+ * needs to know about the online players. Entries are captured on the main thread and published by replacing the
+ * whole snapshot, which is why the chat threads can read it without any locking and without touching the live player
+ * objects.</p>
+ *
+ * <p>The roster has to be republished whenever a player joins, quits or the visuals of a player change. Changes
+ * which can happen to many players at once, like a rank edit, should only mark the players using
+ * {@link #markDirty(Player)}. All players marked during a tick are captured and published as one snapshot at the end
+ * of the tick.</p>
+ *
+ * <p>Publishing a snapshot only copies the entries. The {@link MentionMatcher} of a snapshot is built when it is read
+ * for the first time, so snapshots replaced before any chat message arrives never build one.</p>
+ *
+ * <p>Players can be mentioned by their names, their display names and the aliases registered using
+ * {@link #addAlias(UUID, String)}. All forms are part of the same {@link MentionMatcher}, which prefers names over
+ * display names and display names over aliases if they collide. The display name is captured with the rest of the
+ * entry, so a display name changed by another plugin is only picked up once the player is published again, e.g. on
+ * the next visual change. Plugins changing display names should call {@link #markDirty(Player)}.</p>
+ *
+ * @see KissenChatRenderer
+ */
+public class ChatRoster implements EventListener<ServerTickEndEvent> {
+
+    private final Object lock;
+    private final Set<UUID> dirty;
+    private final Map<UUID, Set<String>> aliases;
+    private volatile Snapshot snapshot;
+
+    public ChatRoster() {
+        this.lock = new Object();
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.aliases = new ConcurrentHashMap<>();
+        this.snapshot = new Snapshot(Map.of(), Map.of());
+    }
+
+    /**
+     * Retrieves the currently published snapshot.
+     *
+     * <p>This method can be called from any thread.</p>
+     *
+     * @return the current {@link Snapshot}
+     */
+    public @NotNull Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Captures the specified player and publishes the updated roster.
+     *
+     * <p>The entry is captured on the main thread. If this method is called from another thread, the capture is
+     * scheduled for the next tick.</p>
+     *
+     * @param player the {@link Player} to publish
+     * @throws NullPointerException if the player is `null`
+     */
+    public void publish(@NotNull Player player) {
+        publish(List.of(player));
+    }
+
+    /**
+     * Captures the specified players and publishes the updated roster at once.
+     *
+     * @param players the players to publish
+     * @throws NullPointerException if the collection is `null`
+     * @see #publish(Player)
+     */
+    public void publish(@NotNull Collection<? extends Player> players) {
+        if (!Bukkit.isPrimaryThread()) {
+            List<Player> copy = List.copyOf(players);
+            Bukkit.getScheduler().runTask(InternalVisual.getPlugin(InternalVisual.class), () -> publish(copy));
+            return;
+        }
+
+        publishEntries(players.stream().filter(Player::isOnline).map(Entry::capture).toList());
+    }
+
+    /**
+     * Marks the specified player as changed, so the player is captured and published at the end of the current tick.
+     *
+     * <p>This method is thread-safe. No matter how often a player is marked within a tick, the player is captured
+     * once and all marked players are published as one snapshot.</p>
+     *
+     * @param player the {@link Player} whose chat state changed
+     * @throws NullPointerException if the player is `null`
+     */
+    public void markDirty(@NotNull Player player) {
+        dirty.add(player.getUniqueId());
+    }
+
+    /**
+     * Registers an additional form the specified player can be mentioned by.
+     *
+     * <p>The alias is kept until it is removed using {@link #removeAlias(UUID, String)}, even while the player is
+     * offline. The player is marked as changed, so an online player can be mentioned by the alias from the end of the
+     * current tick on. This method is thread-safe.</p>
+     *
+     * @param uuid  the unique id of the player
+     * @param alias the alias of the player
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    public void addAlias(@NotNull UUID uuid, @NotNull String alias) {
+        aliases.compute(uuid, (key, current) -> {
+            Set<String> updated = new HashSet<>(Objects.requireNonNullElse(current, Set.of()));
+            updated.add(alias);
+            return Set.copyOf(updated);
+        });
+        dirty.add(uuid);
+    }
+
+    /**
+     * Removes an alias registered using {@link #addAlias(UUID, String)}.
+     *
+     * <p>The player is marked as changed, so the alias no longer mentions an online player from the end of the
+     * current tick on. This method is thread-safe.</p>
+     *
+     * @param uuid  the unique id of the player
+     * @param alias the alias to remove
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    public void removeAlias(@NotNull UUID uuid, @NotNull String alias) {
+        aliases.computeIfPresent(uuid, (key, current) -> {
+            Set<String> updated = new HashSet<>(current);
+            updated.remove(alias);
+            return updated.isEmpty() ? null:Set.copyOf(updated);
+        });
+        dirty.add(uuid);
+    }
+
+    @Override
+    public void call(@NotNull ServerTickEndEvent event) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Player> players = new ArrayList<>(dirty.size());
+        for (UUID uuid : dirty) {
+            dirty.remove(uuid);
+            Optional.ofNullable(Bukkit.getPlayer(uuid)).ifPresent(players::add);
+        }
+        publish(players);
+    }
+
+    /**
+     * Publishes the specified already captured entries at once.
+     *
+     * @param captured the entries to publish
+     * @throws NullPointerException if the collection is `null`
+     */
+    void publishEntries(@NotNull Collection<Entry> captured) {
+        if (!captured.isEmpty()) {
+            update(entries -> captured.forEach(entry -> entries.put(entry.uniqueId(), entry)));
+        }
+    }
+
+    /**
+     * Removes the specified player and publishes the updated roster.
+     *
+     * @param player the {@link Player} to remove
+     * @throws NullPointerException if the player is `null`
+     */
+    public void remove(@NotNull Player player) {
+        UUID uuid = player.getUniqueId();
+        update(entries -> entries.remove(uuid));
+    }
+
+    /**
+     * Copies the current entries, applies the mutation and publishes the result as new snapshot.
+     *
+     * @param mutation the mutation to apply to the copied entries
+     */
+    private void update(@NotNull Consumer<Map<UUID, Entry>> mutation) {
+        synchronized (lock) {
+            Map<UUID, Entry> entries = new HashMap<>(snapshot.entries());
+            mutation.accept(entries);
+            snapshot = new Snapshot(entries, aliases);
+        }
+    }
+
+    /**
+     * Immutable state of the roster at one point in time.
+     *
+     * <p>The {@link MentionMatcher} over the names, display names and aliases of all online players is built on the
+     * first call to {@link #matcher()} and shared by all later calls.</p>
+     */
+    public static final class Snapshot {
+
+        private final Map<UUID, Entry> entries;
+        private final Map<UUID, Set<String>> aliases;
+        private volatile MentionMatcher<UUID> matcher;
+
+        /**
+         * Creates a snapshot of the specified entries and aliases.
+         *
+         * @param entries the entries of the snapshot
+         * @param aliases the registered aliases by the unique id of the player
+         */
+        private Snapshot(@NotNull Map<UUID, Entry> entries, @NotNull Map<UUID, Set<String>> aliases) {
+            this.entries = Map.copyOf(entries);
+            this.aliases = Map.copyOf(aliases);
+        }
+
+        /**
+         * Retrieves the entries of all online players by their unique id.
+         *
+         * @return the entries of the snapshot
+         */
+        public @NotNull @Unmodifiable Map<UUID, Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * Retrieves the matcher over all mention forms of the online players, building it on first use.
+         *
+         * <p>Names are preferred over display names and display names over aliases if they collide. Aliases of
+         * players who are not part of this snapshot are ignored.</p>
+         *
+         * @return the {@link MentionMatcher} of this snapshot
+         */
+        public @NotNull MentionMatcher<UUID> matcher() {
+            MentionMatcher<UUID> current = matcher;
+            if (current == null) {
+                synchronized (this) {
+                    current = matcher;
+                    if (current == null) {
+                        matcher = current = buildMatcher();
+                    }
+                }
+            }
+            return current;
+        }
+
+        private @NotNull MentionMatcher<UUID> buildMatcher() {
+            Map<String, UUID> names = new LinkedHashMap<>();
+            entries.values().forEach(entry -> names.putIfAbsent(entry.name(), entry.uniqueId()));
+            entries.values().forEach(entry -> names.putIfAbsent(entry.displayName(), entry.uniqueId()));
+            aliases.forEach((uuid, forms) -> {
+                if (entries.containsKey(uuid)) {
+                    forms.forEach(alias -> names.putIfAbsent(alias, uuid));
+                }
+            });
+            return new MentionMatcher<>(names);
+        }
+
+        /**
+         * Retrieves the entry of the player with the specified unique id.
+         *
+         * @param uuid the unique id of the player
+         * @return the {@link Entry} of the player, or {@code null} if the player is not part of the snapshot
+         */
+        public @Nullable Entry get(@NotNull UUID uuid) {
+            return entries.get(uuid);
+        }
+    }
+
+    /**
+     * Immutable chat state of a single player.
+     *
+     * @param name        the name of the player
+     * @param displayName the plain text display name of the player
+     * @param uniqueId    the unique id of the player
+     * @param color       the color of the player's messages
+     * @param pingSound   whether the player wants to hear a sound when mentioned
+     * @param styledName  the styled name of the player
+     * @param chatPrefix  the styled name of the player followed by the splitter
+     */
+    public record Entry(@NotNull String name, @NotNull String displayName, @NotNull UUID uniqueId, @NotNull TextColor color, boolean pingSound, @NotNull Component styledName, @NotNull Component chatPrefix) {
+
+        /**
+         * Captures the chat state of the specified player.
+         *
+         * <p>This method reads the live player object and should therefore be called on the main thread.</p>
+         *
+         * @param player the {@link Player} to capture
+         * @return the captured {@link Entry}
+         * @throws NullPointerException if the player is `null`
+         */
+        public static @NotNull Entry capture(@NotNull Player player) {
+            InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+            TextColor color = internalVisual.getRankData(player.getRank().getSource()).getColor();
+            boolean pingSound = player.getSetting(KissenPlayPingSound.class).getValue();
+
+            Component styledName = internalVisual.getEntity(player).styledName();
+            Component splitter = Component.text("»").color(NamedTextColor.GRAY);
+            Component chatPrefix = styledName.appendSpace().append(splitter).appendSpace();
+            String displayName = PlainTextComponentSerializer.plainText().serialize(player.displayName());
+            return new Entry(player.getName(), displayName, player.getUniqueId(), color, pingSound, styledName, chatPrefix);
+        }
+
+        /**
+         * Creates a neutral entry for a player who has not been published yet.
+         *
+         * <p>Unlike {@link #capture(Player)}, this method only reads the name and unique id of the player, which never
+         * change, and can therefore be called from any thread.</p>
+         *
+         * @param player the {@link Player} to create the entry for
+         * @return the neutral {@link Entry}
+         * @throws NullPointerException if the player is `null`
+         */
+        public static @NotNull Entry fallback(@NotNull Player player) {
+            Component styledName = Component.text(player.getName(), NamedTextColor.GRAY);
+            Component chatPrefix = styledName.appendSpace().append(Component.text("»").color(NamedTextColor.GRAY)).appendSpace();
+            return new Entry(player.getName(), player.getName(), player.getUniqueId(), NamedTextColor.WHITE, false, styledName, chatPrefix);
+        }
+    }
+}
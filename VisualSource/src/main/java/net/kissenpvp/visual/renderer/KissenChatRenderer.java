@@ -19,19 +19,23 @@
 package net.kissenpvp.visual.renderer;
 
 import io.papermc.paper.chat.ChatRenderer;
+import lombok.Getter;
 import net.kissenpvp.visual.InternalVisual;
-import net.kissenpvp.visual.api.rank.VisualRank;
-import net.kissenpvp.visual.playersettings.KissenPlayPingSound;
+import net.kissenpvp.visual.mention.MentionMatcher;
+import net.kissenpvp.visual.mention.MentionNotifier;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.format.TextColor;
-import org.bukkit.Bukkit;
-import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Implementation of the ChatRenderer interface for custom rendering in Kissen.
  *
@@ -42,88 +46,264 @@ import org.jetbrains.annotations.NotNull;
  */
 public class KissenChatRenderer implements ChatRenderer {
 
+    /**
+     * Fingerprint shared by all viewers, as the rendered message does not depend on the viewer.
+     */
+    private static final Object VIEWER_INDEPENDENT = new Object();
+
+    @Getter private final ChatRoster roster;
+    @Getter private final boolean viewerUnaware;
+    private final MentionNotifier mentionNotifier;
+    private final AtomicLong messages, renders;
+
+    /**
+     * Constructs a new chat renderer.
+     *
+     * <p>In the viewer-unaware mode every message is rendered exactly once and the same component is sent to all
+     * viewers, which allows the server to serialize the message only once. Any viewer specific rendering is not
+     * available in this mode.</p>
+     *
+     * @param viewerUnaware whether the messages are rendered independent of the viewers
+     */
+    public KissenChatRenderer(boolean viewerUnaware) {
+        this.roster = new ChatRoster();
+        this.viewerUnaware = viewerUnaware;
+        this.mentionNotifier = new MentionNotifier();
+        this.messages = new AtomicLong();
+        this.renders = new AtomicLong();
+    }
+
+    /**
+     * Creates the renderer for a single chat message delivered by the server.
+     *
+     * <p>The mentioned players are notified when the message is rendered for the first time. As the server only
+     * renders messages which are actually delivered, messages cancelled by any listener do not notify anyone.</p>
+     *
+     * @return a new {@link ChatRenderer} for the message
+     * @see #forMessage(boolean)
+     */
+    public @NotNull ChatRenderer forMessage() {
+        return forMessage(true);
+    }
+
+    /**
+     * Creates the renderer for a single chat message.
+     *
+     * <p>The returned renderer renders the message only once per distinct viewer fingerprint and reuses the result for
+     * all other viewers. In the viewer-unaware mode the message is passed to Paper's viewer-unaware renderer instead,
+     * which renders it once for all viewers.</p>
+     *
+     * <p>Callers rendering a message which may still be discarded afterwards have to disable the notification and call
+     * {@link #notifyMentions(Component)} once the message is delivered.</p>
+     *
+     * <p>Each call reports the renders per message of the previous messages using {@link #reportRenders()}.</p>
+     *
+     * @param notify whether the mentioned players are notified when the message is rendered for the first time
+     * @return a new {@link ChatRenderer} for the message
+     * @see #fingerprint(Audience)
+     * @see ChatRenderer#viewerUnaware(ChatRenderer.ViewerUnaware)
+     */
+    public @NotNull ChatRenderer forMessage(boolean notify) {
+        reportRenders();
+        messages.incrementAndGet();
+        if (viewerUnaware) {
+            return ChatRenderer.viewerUnaware((source, sourceDisplayName, message) -> {
+                if (notify) {
+                    notifyMentions(message);
+                }
+                return render(source, sourceDisplayName, message, source);
+            });
+        }
+        return new CachedChatRenderer(this, notify);
+    }
+
+    /**
+     * Returns the fingerprint of the specified viewer.
+     *
+     * <p>Viewers sharing the same fingerprint receive the same rendered message. As the message currently does not
+     * depend on the viewer at all, every viewer shares the same fingerprint. A viewer-dependent rendering step, like
+     * theme colors, has to be reflected by this method.</p>
+     *
+     * @param viewer the {@link Audience} viewing the message
+     * @return the fingerprint of the viewer
+     * @throws NullPointerException if the viewer is `null`
+     */
+    public @NotNull Object fingerprint(@NotNull Audience viewer) {
+        return VIEWER_INDEPENDENT;
+    }
+
+    /**
+     * Returns the average amount of renders per chat message.
+     *
+     * @return the renders per message, or {@code 0} if no message has been rendered yet
+     */
+    public double getRendersPerMessage() {
+        long total = messages.get();
+        return total == 0 ? 0:(double) renders.get() / total;
+    }
+
+    /**
+     * Reports the render metrics of the chat to the log of the plugin.
+     *
+     * <p>The amount of messages and the average amount of renders per message are logged at {@link Level#FINE}, the
+     * same way {@link KissenTabRender#reportTeams()} reports the tab teams.</p>
+     *
+     * @see #getRendersPerMessage()
+     */
+    public void reportRenders() {
+        Logger logger = InternalVisual.getPlugin(InternalVisual.class).getLogger();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Chat renders: %d messages, %.2f renders per message", messages.get(), getRendersPerMessage()));
+        }
+    }
+
     @Override
     @Contract(value = "_, _, _, _ -> new")
     public @NotNull Component render(@NotNull Player player, @NotNull Component component, @NotNull Component message, @NotNull Audience audience) {
-        InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
-        VisualRank visualRank = internalVisual.getRankData(player.getRank().getSource());
+        renders.incrementAndGet();
+        ChatRoster.Snapshot snapshot = roster.getSnapshot();
+        ChatRoster.Entry entry = snapshot.get(player.getUniqueId());
+        if (entry == null) {
+            entry = ChatRoster.Entry.fallback(player); // not published yet
+        }
+        return entry.chatPrefix().append(pingPlayer(snapshot, message.color(entry.color())));
+    }
+
+    /**
+     * Notifies all players mentioned in the specified message.
+     *
+     * <p>The {@code notifyMentions} method is meant to be called exactly once per delivered chat message. It collects
+     * the mentioned players in a single pass, keeps those who enabled the ping sound according to the
+     * {@link ChatRoster} and hands them to the {@link MentionNotifier}, which plays the ping sounds on the main
+     * thread.</p>
+     *
+     * @param message the original message component
+     * @throws NullPointerException if the message is `null`
+     * @see MentionNotifier
+     */
+    public void notifyMentions(@NotNull Component message) {
+        ChatRoster.Snapshot snapshot = roster.getSnapshot();
+        if (snapshot.matcher().isEmpty()) {
+            return;
+        }
 
-        Component splitter = Component.text("»").color(NamedTextColor.GRAY);
-        Component chatPrefix = internalVisual.getEntity(player).styledName().appendSpace().append(splitter).appendSpace();
-        TextColor chatColor = visualRank.getColor();
-        return chatPrefix.append(pingPlayer(player, message.color(chatColor)));
+        Set<UUID> mentioned = new HashSet<>();
+        collectMentions(message, snapshot.matcher(), mentioned);
+        mentioned.removeIf(uuid -> {
+            ChatRoster.Entry entry = snapshot.get(uuid);
+            return entry == null || !entry.pingSound();
+        });
+        mentionNotifier.ping(mentioned);
     }
 
     /**
-     * Pings online players mentioned in the message and plays a ping sound if configured.
+     * Highlights online players mentioned in the message.
      *
-     * <p>The {@code pingPlayer} method iterates through online players, alters the message to mention each player,
-     * and plays a ping sound for players with the {@link KissenPlayPingSound} setting enabled.</p>
+     * <p>The {@code pingPlayer} method finds the mentions of all online players in a single pass using the
+     * {@link MentionMatcher} of the {@link ChatRoster.Snapshot} and alters the message to highlight them. Notifying the
+     * mentioned players is not part of the rendering, see {@link #notifyMentions(Component)}.</p>
      *
      * <p>Example usage:</p>
      *
      * <pre>
      * {@code
-     * Player player = // Obtain a Player instance
+     * ChatRoster.Snapshot snapshot = roster.getSnapshot();
      * Component message = // Obtain a Component instance
-     * Component pingedMessage = pingPlayer(player, message);
+     * Component pingedMessage = pingPlayer(snapshot, message);
      * // Use the pinged message as needed
      * }
      * </pre>
      *
-     * @param player  the {@link Player} sending the original message
-     * @param message the original message component
-     * @return a {@link Component} with mentions and ping sounds applied
+     * @param snapshot the {@link ChatRoster.Snapshot} of the online players
+     * @param message  the original message component
+     * @return a {@link Component} with mentions applied
      * @throws NullPointerException if either parameter is `null`
-     * @see Player
+     * @see ChatRoster
      * @see Component
-     * @see KissenPlayPingSound
      */
-    @Contract(value = "_, _ -> param2 ", mutates = "param2")
-    private @NotNull Component pingPlayer(@NotNull Player player, @NotNull Component message) {
-        for (Player current : Bukkit.getOnlinePlayers()) {
-            Component altered = alterComponent(message, current);
-            if (!altered.equals(message)) {
-                message = altered;
-                if (!current.getSetting(KissenPlayPingSound.class).getValue()) {
-                    continue;
-                }
-                current.playSound(current, Sound.ENTITY_ARROW_HIT_PLAYER, .5f, 1f);
-            }
+    @Contract(value = "_, _ -> new")
+    @NotNull Component pingPlayer(@NotNull ChatRoster.Snapshot snapshot, @NotNull Component message) {
+        MentionMatcher<UUID> matcher = snapshot.matcher();
+        if (matcher.isEmpty()) {
+            return message;
         }
-        return message;
+        return alterComponent(message, snapshot, new HashSet<>());
     }
 
     /**
-     * Alters the message to mention a specific player by adding an '@' symbol and changing the text color to yellow.
+     * Collects the unique ids of all players mentioned in the message without altering it.
      *
-     * <p>The {@code alterComponent} method replaces occurrences of a player's name in the message with a formatted mention,
-     * appending an '@' symbol and changing the text color to yellow.</p>
+     * @param message   the message component
+     * @param matcher   the {@link MentionMatcher} over the mention forms of the online players
+     * @param mentioned the set the unique ids of the mentioned players are added to
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    @Contract(mutates = "param3")
+    private void collectMentions(@NotNull Component message, @NotNull MentionMatcher<UUID> matcher, @NotNull Set<UUID> mentioned) {
+        if (message instanceof TextComponent textComponent) {
+            matcher.find(textComponent.content()).forEach(match -> mentioned.add(match.value()));
+        }
+        message.children().forEach(child -> collectMentions(child, matcher, mentioned));
+    }
+
+    /**
+     * Alters the message to mention players by adding an '@' symbol and changing the text color to yellow.
+     *
+     * <p>The {@code alterComponent} method walks the component tree once. The content of each text component is
+     * scanned by the matcher of the snapshot, and every occurrence of a player's name, display name or alias is
+     * replaced with a formatted mention showing the name of the player, no matter which form or case was typed. The
+     * unique ids of the mentioned players are added to the given set.</p>
      *
      * <p>Example usage:</p>
      *
      * <pre>
      * {@code
-     * Player current = // Obtain a Player instance
      * Component message = // Obtain a Component instance
-     * Component alteredMessage = alterComponent(message, current);
+     * Set<UUID> mentioned = new HashSet<>();
+     * Component alteredMessage = alterComponent(message, roster.getSnapshot(), mentioned);
      * // Use the altered message as needed
      * }
      * </pre>
      *
-     * @param message the original message component
-     * @param current the {@link Player} to be mentioned in the message
+     * @param message   the original message component
+     * @param snapshot  the {@link ChatRoster.Snapshot} of the online players
+     * @param mentioned the set the unique ids of the mentioned players are added to
      * @return a {@link Component} with mentions altered
-     * @throws NullPointerException if either parameter is `null`
-     * @see Player
+     * @throws NullPointerException if any of the parameters are `null`
+     * @see MentionMatcher
      * @see Component
      */
-    @Contract(value = "_, _ -> new")
-    private @NotNull Component alterComponent(@NotNull Component message, @NotNull Player current) {
-        return message.replaceText(builder -> {
-            builder.match(current.getName());
-            Component name = Component.text("@" + current.getName());
-            builder.replacement(name.color(NamedTextColor.YELLOW));
-        });
+    @Contract(value = "_, _, _ -> new", mutates = "param3")
+    @NotNull Component alterComponent(@NotNull Component message, @NotNull ChatRoster.Snapshot snapshot, @NotNull Set<UUID> mentioned) {
+        List<Component> children = new ArrayList<>(message.children().size());
+        message.children().forEach(child -> children.add(alterComponent(child, snapshot, mentioned)));
+
+        if (!(message instanceof TextComponent textComponent)) {
+            return message.children(children);
+        }
+
+        String content = textComponent.content();
+        List<MentionMatcher.Match<UUID>> matches = snapshot.matcher().find(content);
+        if (matches.isEmpty()) {
+            return message.children(children);
+        }
+
+        List<Component> parts = new ArrayList<>(matches.size() * 2 + children.size());
+        int cursor = matches.getFirst().start();
+        for (MentionMatcher.Match<UUID> match : matches) {
+            if (match.start() > cursor) {
+                parts.add(Component.text(content.substring(cursor, match.start())));
+            }
+            ChatRoster.Entry entry = Objects.requireNonNull(snapshot.get(match.value()));
+            parts.add(Component.text("@" + entry.name()).color(NamedTextColor.YELLOW));
+            mentioned.add(match.value());
+            cursor = match.end();
+        }
+        if (cursor < content.length()) {
+            parts.add(Component.text(content.substring(cursor)));
+        }
+        parts.addAll(children);
+
+        return textComponent.content(content.substring(0, matches.getFirst().start())).children(parts);
     }
 }
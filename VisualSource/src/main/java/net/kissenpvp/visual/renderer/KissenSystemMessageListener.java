@@ -35,15 +35,31 @@ import org.jetbrains.annotations.NotNull;
  * <p>The {@code KissenSystemMessageListener} class implements the {@link EventListener} interface for handling
  * {@link SystemMessageEvent}s. It overrides the {@link EventListener#call(EventClass)}} method to customize
  * the behavior of system messages. The class utilizes the {@link #hidePrefix(SystemMessageEvent, Player, ServerEntity)}
- * and {@link InternalVisual#getPrefix(ServerEntity)} methods to determine prefix visibility and generate the prefix, respectively.</p>
+ * and {@link InternalVisual#getPersonalisedPrefix(ServerEntity)} methods to determine prefix visibility and the content of the prefix, respectively.</p>
+ *
+ * <p>The messages are styled through a {@link StyleCache}, so recurring messages are neither prefixed nor styled again
+ * for every receiver sharing the same theme and prefix.</p>
  *
  * @see EventListener
  * @see SystemMessageEvent
  * @see #hidePrefix(SystemMessageEvent, Player, ServerEntity)
- * @see InternalVisual#getPrefix(ServerEntity)
+ * @see InternalVisual#getPersonalisedPrefix(ServerEntity)
+ * @see StyleCache
  */
 public class KissenSystemMessageListener implements EventListener<SystemMessageEvent> {
 
+    private final StyleCache styleCache;
+
+    /**
+     * Constructs a new system message listener.
+     *
+     * @param styleCache the {@link StyleCache} the system messages are styled through
+     * @throws NullPointerException if the style cache is `null`
+     */
+    public KissenSystemMessageListener(@NotNull StyleCache styleCache) {
+        this.styleCache = styleCache;
+    }
+
     private static @NotNull VisualEntity<?> getVisualData(ServerEntity receiver) {
         return InternalVisual.getPlugin(InternalVisual.class).getEntity(receiver);
     }
@@ -56,8 +72,8 @@ public class KissenSystemMessageListener implements EventListener<SystemMessageE
             return;
         }
 
-        Component prefix = InternalVisual.getPlugin(InternalVisual.class).getPrefix(receiver).appendSpace().append(Component.text("»")).appendSpace();
-        event.setComponent(getVisualData(receiver).getTheme().style(prefix.append(event.getComponent())));
+        String prefix = InternalVisual.getPlugin(InternalVisual.class).getPersonalisedPrefix(receiver);
+        event.setComponent(styleCache.style(getVisualData(receiver).getTheme(), prefix, event.getComponent()));
     }
 
     /**
@@ -77,7 +93,7 @@ public class KissenSystemMessageListener implements EventListener<SystemMessageE
     private boolean hidePrefix(@NotNull SystemMessageEvent systemMessageEvent, @NotNull Player player, @NotNull ServerEntity receiver) {
         boolean showPrefix = player.getSetting(KissenShowPrefix.class).getValue() && !systemMessageEvent.getComponent().contains(Component.newline());
         if (!showPrefix) {
-            systemMessageEvent.setComponent(getVisualData(receiver).getTheme().style(systemMessageEvent.getComponent()));
+            systemMessageEvent.setComponent(styleCache.style(getVisualData(receiver).getTheme(), systemMessageEvent.getComponent()));
             return true;
         }
         return false;
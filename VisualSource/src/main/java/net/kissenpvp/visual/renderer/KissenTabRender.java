@@ -18,138 +18,379 @@
 
 package net.kissenpvp.visual.renderer;
 
+import lombok.Getter;
 import net.kissenpvp.visual.InternalVisual;
-import net.kissenpvp.visual.api.entity.VisualEntity;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.TranslatableComponent;
-import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.format.TextColor;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.scoreboard.Scoreboard;
-import org.bukkit.scoreboard.Team;
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Class for custom rendering of player tab headers and footers in Kissen.
  *
  * <p>The {@code KissenTabRender} class initializes the rendering of player tab headers and footers
- * using MiniMessage for formatting and updating every second for all online players.</p>
+ * using pre-rendered templates, refreshing every online player once per refresh period.</p>
  *
- * @see MiniMessage
- * @see Component
- * @see TranslatableComponent
+ * @see TabRefreshScheduler
+ * @see TabTemplate
+ * @see TabTeam
  */
 public class KissenTabRender {
 
+    private final Map<UUID, TabTeam> teams;
+    private final TabTemplateCache templateCache;
+    private final Map<UUID, TabFingerprint> fingerprints;
+    private final Set<UUID> pending;
+    private final ExecutorService renderExecutor;
+    private final int pingHysteresis;
+    @Getter private final TabRefreshScheduler refreshScheduler;
+    private final TeamRenderer teamRenderer;
+    @Getter private final TabOrdering ordering;
     private int taskID;
+    private int reportedLeaks;
+
+    private static final int MAX_QUEUED_RENDERS = 64;
 
     /**
      * Constructs a new instance of KissenTabRender and initializes the tab rendering.
      *
-     * <p>The constructor uses MiniMessage for message formatting and sets up a scheduler task to update
-     * player tab headers and footers for all online players every second.</p>
+     * <p>The constructor sets up a {@link TabRefreshScheduler} which refreshes the tab headers and footers of all
+     * online players once per refresh period, spread across the ticks of the period. The static parts of the header
+     * and footer are taken from the {@link TabTemplateCache}, so only the player count and ping have to be filled in
+     * on each refresh. The rendering itself happens asynchronously, only sending happens on the main thread.</p>
+     *
+     * <p>The rendering runs on a bounded pool of {@code tab.refresh.threads} daemon threads owned by this instance,
+     * instead of the unbounded asynchronous pool of the scheduler. The pool is shut down using {@link #shutdown()}.</p>
      */
     public KissenTabRender() {
-        final MiniMessage miniMessage = MiniMessage.miniMessage();
-        final TranslatableComponent header = Component.translatable("visual.tab.header");
-        final TranslatableComponent footer = Component.translatable("visual.tab.footer");
         final InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+        final FileConfiguration config = internalVisual.getConfig();
+        teams = new HashMap<>();
+        templateCache = new TabTemplateCache();
+        fingerprints = new ConcurrentHashMap<>();
+        pending = ConcurrentHashMap.newKeySet();
+        renderExecutor = createRenderExecutor(config.getInt("tab.refresh.threads", 2));
+        pingHysteresis = Math.max(0, config.getInt("tab.ping_hysteresis", 2));
+        teamRenderer = createTeamRenderer(config.getString("tab.team_mode", "scoreboard"));
+        ordering = new TabOrdering(TabOrdering.Secondary.parse(config.getString("tab.sort.secondary", "name")));
 
-        taskID = Bukkit.getScheduler().scheduleSyncRepeatingTask(InternalVisual.getPlugin(InternalVisual.class), () -> Bukkit.getOnlinePlayers().forEach(player -> {
-            VisualEntity<?> visualPlayer = internalVisual.getEntity(player);
-            String primary = visualPlayer.getTheme().getPrimaryColor().asHexString();
-            String secondary = visualPlayer.getTheme().getSecondaryColor().asHexString();
+        int period = config.getInt("tab.refresh.period", 20);
+        double tpsThreshold = config.getDouble("tab.refresh.tps_threshold", 18d);
+        int maxPeriod = config.getInt("tab.refresh.max_period", 100);
+        refreshScheduler = new TabRefreshScheduler(this::refresh, period, tpsThreshold, maxPeriod);
+        taskID = Bukkit.getScheduler().scheduleSyncRepeatingTask(internalVisual, refreshScheduler, 0, 1);
+    }
 
-            Component prefix = internalVisual.getPrefix(player);
+    /**
+     * Refreshes the tab headers and footers of the specified players.
+     *
+     * <p>The {@code refresh} method captures a {@link TabSnapshot} of every player on the main thread and renders the
+     * headers and footers asynchronously on the render pool using {@link #render(List)}. Only sending the rendered
+     * components happens on the main thread again.</p>
+     *
+     * <p>Players whose previous refresh is still being rendered or waiting to be sent are skipped, as their
+     * fingerprint is only recorded once the previous refresh was sent. Otherwise, both refreshes would compare against
+     * the same outdated fingerprint and send the same header and footer twice. Players are only marked as pending once
+     * all snapshots were captured, and released again when the render pool rejects the refresh, so a failure never
+     * leaves a player pending forever.</p>
+     *
+     * @param players the {@link Player}s whose headers and footers are refreshed
+     * @throws NullPointerException if the list is `null`
+     */
+    private void refresh(@NotNull List<Player> players) {
+        List<TabSnapshot> snapshots = players.stream().filter(player -> !pending.contains(player.getUniqueId())).map(TabSnapshot::capture).toList();
+        if (snapshots.isEmpty()) {
+            return;
+        }
 
-            Component[] headerArguments = {prefix, Component.text(Bukkit.getOnlinePlayers().size()), Component.text(Bukkit.getMaxPlayers())};
-            Component[] footerArguments = {Component.text(player.getPing())};
+        snapshots.forEach(snapshot -> pending.add(snapshot.player().getUniqueId()));
+        try {
+            renderExecutor.execute(() -> {
+                try {
+                    render(snapshots);
+                } catch (RuntimeException exception) {
+                    release(snapshots);
+                    throw exception;
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            release(snapshots);
+        }
+    }
 
-            player.sendPlayerListHeader(visualPlayer.getTheme().style(header.arguments(headerArguments)));
-            player.sendPlayerListFooter(visualPlayer.getTheme().style(footer.arguments(footerArguments)));
-        }), 0, 20);
+    /**
+     * Releases the players of the specified snapshots, so they are refreshed again by the next cycle.
+     *
+     * @param snapshots the {@link TabSnapshot}s whose players are no longer pending
+     * @throws NullPointerException if the list is `null`
+     */
+    private void release(@NotNull List<TabSnapshot> snapshots) {
+        snapshots.forEach(snapshot -> pending.remove(snapshot.player().getUniqueId()));
     }
 
-    public void shutdown() {
-        Bukkit.getScheduler().cancelTask(taskID);
+    /**
+     * Creates the bounded pool rendering the headers and footers.
+     *
+     * <p>The pool uses a fixed amount of daemon threads and queues at most {@value #MAX_QUEUED_RENDERS} refreshes.
+     * Refreshes exceeding the queue are rejected and picked up by the next cycle instead of piling up while the
+     * server is lagging.</p>
+     *
+     * @param threads the amount of threads rendering in parallel
+     * @return the created {@link ExecutorService}
+     */
+    private static @NotNull ExecutorService createRenderExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "Visual Tab Render #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_RENDERS), factory);
     }
 
-    public void update() {
-        setTab();
+    /**
+     * Renders the headers and footers of the specified snapshots and schedules sending them.
+     *
+     * <p>The {@code render} method runs asynchronously. It compares the fingerprint of each snapshot with the one last
+     * sent to the player and only renders the header or footer when it differs. The sending is scheduled as one task
+     * for all snapshots on the main thread. Players without changes are no longer pending afterwards, all others once
+     * their update was sent.</p>
+     *
+     * @param snapshots the {@link TabSnapshot}s to render
+     * @throws NullPointerException if the list is `null`
+     * @see TabFingerprint
+     */
+    private void render(@NotNull List<TabSnapshot> snapshots) {
+        List<TabUpdate> updates = new ArrayList<>(snapshots.size());
+        for (TabSnapshot snapshot : snapshots) {
+            TabTemplate template = templateCache.get(snapshot.theme(), snapshot.prefix());
+            TabFingerprint fingerprint = new TabFingerprint(template, snapshot.online(), snapshot.max(), snapshot.ping());
+
+            TabFingerprint previous = fingerprints.get(snapshot.player().getUniqueId());
+            boolean header = fingerprint.headerChanged(previous);
+            boolean footer = fingerprint.footerChanged(previous, pingHysteresis);
+            if (!header && !footer) {
+                pending.remove(snapshot.player().getUniqueId());
+                continue;
+            }
+
+            // keep the ping last sent, so a slowly drifting ping is resent once it exceeds the hysteresis
+            int ping = footer ? fingerprint.ping():previous.ping();
+            TabFingerprint sent = new TabFingerprint(template, fingerprint.online(), fingerprint.max(), ping);
+            Component headerComponent = header ? template.header(fingerprint.online(), fingerprint.max()):null;
+            Component footerComponent = footer ? template.footer(fingerprint.ping()):null;
+            updates.add(new TabUpdate(snapshot.player(), sent, headerComponent, footerComponent));
+        }
+
+        InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        if (internalVisual.isEnabled()) {
+            Bukkit.getScheduler().runTask(internalVisual, () -> updates.forEach(this::sendTab));
+            return;
+        }
+        updates.forEach(update -> pending.remove(update.player().getUniqueId()));
     }
 
-    private void setTab() {
-        InternalVisual visual = InternalVisual.getPlugin(InternalVisual.class);
-        Scoreboard scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
-        Bukkit.getOnlinePlayers().forEach(player -> {
-            VisualEntity<?> visualEntity = visual.getEntity(player);
-            prepareTeam(visualEntity, generateTeam(player, scoreboard)).addPlayer(player);
-            player.setScoreboard(scoreboard);
-        });
+    /**
+     * Sends the rendered header and footer of the specified update.
+     *
+     * <p>This method must be called on the main thread. Updates of players who left in the meantime are dropped.</p>
+     *
+     * @param update the {@link TabUpdate} to send
+     * @throws NullPointerException if the update is `null`
+     */
+    private void sendTab(@NotNull TabUpdate update) {
+        Player player = update.player();
+        pending.remove(player.getUniqueId());
+        if (!player.isOnline()) {
+            return;
+        }
+
+        Optional.ofNullable(update.header()).ifPresent(player::sendPlayerListHeader);
+        Optional.ofNullable(update.footer()).ifPresent(player::sendPlayerListFooter);
+        fingerprints.put(player.getUniqueId(), update.fingerprint());
     }
 
     /**
-     * Generates a team based on the specified player and scoreboard.
+     * Discards all data cached for the specified player and removes its team.
      *
-     * <p>The {@code generateTeam} method creates a team with a unique identifier based on the player's rank priority.</p>
+     * <p>This method should be called when the player leaves. The team of the player is removed from all viewers right
+     * away instead of lingering until the next full update, and the header, footer and teams are sent again on the
+     * next join.</p>
      *
-     * @param current    the {@link Player} for whom the team is generated
-     * @param scoreboard the {@link Scoreboard} to which the team belongs
-     * @return the generated {@link Team}
-     * @throws NullPointerException if either the player or scoreboard is `null`
-     * @see Player
-     * @see Team
-     * @see Scoreboard
+     * @param player the {@link Player} who left
+     * @throws NullPointerException if the player is `null`
      */
-    @Contract(value = "_, _ -> new", mutates = "param2")
-    private @NotNull Team generateTeam(@NotNull Player current, @NotNull Scoreboard scoreboard) {
-        int priority = current.getRank().getSource().getPriority();
-        return scoreboard.registerNewTeam(priority + current.getUniqueId().toString());
+    public void remove(@NotNull Player player) {
+        fingerprints.remove(player.getUniqueId());
+        Optional.ofNullable(teams.remove(player.getUniqueId())).ifPresent(teamRenderer::remove);
+        ordering.remove(player.getUniqueId());
+        teamRenderer.hide(player);
     }
 
     /**
-     * Initializes the specified team with customized prefix, suffix, and color based on the player's rank and settings.
+     * Returns the amount of teams in the shadow model.
      *
-     * <p>The {@code initializeTeam} method sets the prefix, suffix, and color for the team based on the player's rank and settings.</p>
+     * @return the amount of tracked teams
+     */
+    public int getTrackedTeamCount() {
+        return teams.size();
+    }
+
+    /**
+     * Returns the amount of teams currently registered by the {@link TeamRenderer}.
      *
-     * @param current the {@link Player} for whom the team is initialized
-     * @param team    the {@link Team} to be initialized
-     * @return the initialized {@link Team}
-     * @throws NullPointerException if either the player or team is `null`
-     * @see Player
-     * @see Team
+     * @return the amount of live teams
      */
-    @Contract(value = "_, _ -> param2", mutates = "param2")
-    private @NotNull Team prepareTeam(@NotNull VisualEntity<?> current, @NotNull Team team) {
-        Component space = Component.space();
-        current.getPrefixComponent().map(Component::appendSpace).ifPresent(team::prefix);
-        current.getSuffixComponent().map(suffix -> Component.space().append(suffix)).ifPresent(team::suffix);
-        team.color(NamedTextColor.nearestTo(current.getNameColor()));
-        return team;
+    public int getLiveTeamCount() {
+        return teamRenderer.getTeamCount();
     }
 
     /**
-     * Retrieves the last color in a given component.
+     * Returns the amount of live teams exceeding the amount of online players.
      *
-     * <p>The {@code getLastColor} method extracts the last color in the component, considering nested components.
-     * It is used to determine the nearest named text color for styling purposes.</p>
+     * <p>As every online player owns exactly one team, any value above zero indicates leaked teams.</p>
      *
-     * @param component the {@link Component} from which to retrieve the last color
-     * @return an {@link Optional} containing the nearest named text color, or empty if no color is found
-     * @throws NullPointerException if the component is `null`
-     * @see Component
-     * @see NamedTextColor
+     * @return the amount of leaked teams
      */
-    private @NotNull Optional<NamedTextColor> getLastColor(@NotNull Component component) {
-        TextColor namedTextColor = component.color();
-        if (!component.children().isEmpty()) {
-            namedTextColor = component.children().get(component.children().size() - 1).color();
+    public int getLeakedTeamCount() {
+        return Math.max(0, getLiveTeamCount() - Bukkit.getOnlinePlayers().size());
+    }
+
+    /**
+     * Reports the team metrics of the tab list to the log of the plugin.
+     *
+     * <p>The counts are logged at {@link Level#FINE} on every call. When the amount of leaked teams grows beyond the
+     * amount last reported, a warning is logged as well, so a leak shows up without enabling debug logging.</p>
+     *
+     * <p>This method must be called on the main thread.</p>
+     *
+     * @see #getLeakedTeamCount()
+     */
+    public void reportTeams() {
+        Logger logger = InternalVisual.getPlugin(InternalVisual.class).getLogger();
+        int leaked = getLeakedTeamCount();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Tab teams: %d tracked, %d live, %d leaked", getTrackedTeamCount(), getLiveTeamCount(), leaked));
+        }
+
+        if (leaked > reportedLeaks) {
+            logger.warning(String.format("Detected %d leaked tab teams (%d live teams for %d online players)", leaked, getLiveTeamCount(), Bukkit.getOnlinePlayers().size()));
         }
-        return Optional.ofNullable(namedTextColor).map(NamedTextColor::nearestTo);
+        reportedLeaks = leaked;
     }
+
+    /**
+     * Stops refreshing the tab list and shuts down the render pool.
+     *
+     * <p>This method should be called when the plugin is disabled. Refreshes still queued on the render pool are
+     * discarded.</p>
+     */
+    public void shutdown() {
+        Bukkit.getScheduler().cancelTask(taskID);
+        renderExecutor.shutdownNow();
+        templateCache.clear();
+        fingerprints.clear();
+        pending.clear();
+    }
+
+    /**
+     * Synchronizes the team of the specified player with the tab list.
+     *
+     * <p>The {@code update} method computes the current {@link TabTeam} of the player and compares it against the
+     * shadow copy of the last data sent. When nothing changed, no packet is sent at all. Otherwise, the difference is
+     * handed to the {@link TeamRenderer}. Additionally, the player receives all teams if not already done.</p>
+     *
+     * <p>As the team name is the sort key assigned by the {@link TabOrdering}, a change of the player's rank priority
+     * only renames the team of this player.</p>
+     *
+     * @param player the {@link Player} whose team should be updated
+     * @throws NullPointerException if the player is `null`
+     * @see TabTeam
+     */
+    public void update(@NotNull Player player) {
+        InternalVisual visual = InternalVisual.getPlugin(InternalVisual.class);
+
+        TabTeam current = TabTeam.of(player, visual.getEntity(player), ordering.assign(player));
+        TabTeam previous = teams.put(player.getUniqueId(), current);
+        if (!Objects.equals(previous, current)) {
+            teamRenderer.apply(player, previous, current);
+        }
+
+        teamRenderer.show(player, teams.values());
+    }
+
+    /**
+     * Synchronizes the teams of the specified players, which joined recently, with the tab list.
+     *
+     * <p>The {@code join} method computes the teams of all players first and sends the changes as one batch to the
+     * players which already received the teams before. Afterwards, each of the joined players receives the full set of
+     * teams once.</p>
+     *
+     * @param players the {@link Player}s who joined
+     * @throws NullPointerException if the collection is `null`
+     * @see #update(Player)
+     */
+    public void join(@NotNull Collection<Player> players) {
+        InternalVisual visual = InternalVisual.getPlugin(InternalVisual.class);
+
+        List<TeamRenderer.Change> changes = new ArrayList<>(players.size());
+        for (Player player : players) {
+            TabTeam current = TabTeam.of(player, visual.getEntity(player), ordering.assign(player));
+            TabTeam previous = teams.put(player.getUniqueId(), current);
+            if (!Objects.equals(previous, current)) {
+                changes.add(new TeamRenderer.Change(player, previous, current));
+            }
+        }
+        teamRenderer.apply(changes);
+
+        Collection<TabTeam> all = teams.values();
+        players.forEach(player -> teamRenderer.show(player, all));
+    }
+
+    /**
+     * Creates the team renderer selected in the configuration.
+     *
+     * <p>The {@code createTeamRenderer} method returns a {@link PacketTeamRenderer} when the {@code packet} mode is
+     * configured and the server provides the required classes. In all other cases, the {@link ScoreboardTeamRenderer}
+     * is used.</p>
+     *
+     * @param mode the configured team mode
+     * @return the {@link TeamRenderer} to use
+     * @throws NullPointerException if the mode is `null`
+     */
+    private static @NotNull TeamRenderer createTeamRenderer(@NotNull String mode) {
+        if (mode.equalsIgnoreCase("packet")) {
+            try {
+                return new PacketTeamRenderer();
+            } catch (ReflectiveOperationException | RuntimeException exception) {
+                InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+                internalVisual.getLogger().warning("Packet team mode is not supported by this server, falling back to scoreboard mode: " + exception);
+            }
+        }
+        return new ScoreboardTeamRenderer();
+    }
+
+    /**
+     * Rendered header and footer waiting to be sent on the main thread.
+     *
+     * @param player      the {@link Player} receiving the header and footer
+     * @param fingerprint the {@link TabFingerprint} to remember once sent
+     * @param header      the rendered header, or {@code null} if it did not change
+     * @param footer      the rendered footer, or {@code null} if it did not change
+     */
+    private record TabUpdate(@NotNull Player player, @NotNull TabFingerprint fingerprint, @Nullable Component header, @Nullable Component footer) { }
 }
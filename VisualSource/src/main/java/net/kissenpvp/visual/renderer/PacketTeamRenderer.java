@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import io.netty.channel.Channel;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Team renderer writing team packets directly to the connections of the players.
+ *
+ * <p>The {@code PacketTeamRenderer} class bypasses the Bukkit scoreboard API entirely. Instead of registering teams
+ * on a server-side scoreboard, it creates the team add, update and remove packets using the {@link TeamPacketFactory}
+ * and writes them, bundled, to the channel of every viewer. A change of prefix, suffix and color therefore costs a
+ * single packet per viewer.</p>
+ *
+ * @see TeamRenderer
+ * @see TeamPacketFactory
+ */
+public class PacketTeamRenderer implements TeamRenderer {
+
+    private final TeamPacketFactory packetFactory;
+    private final Set<UUID> viewers;
+    private final Set<String> liveTeams;
+
+    /**
+     * Constructs a new packet team renderer.
+     *
+     * @throws ReflectiveOperationException if the server does not provide the classes required to create team
+     *                                      packets
+     */
+    public PacketTeamRenderer() throws ReflectiveOperationException {
+        this.packetFactory = new TeamPacketFactory();
+        this.viewers = new HashSet<>();
+        this.liveTeams = new HashSet<>();
+    }
+
+    @Override
+    public void apply(@NotNull Player player, @Nullable TabTeam previous, @NotNull TabTeam current) {
+        List<Object> packets = new ArrayList<>(2);
+        collectPackets(previous, current, packets);
+        broadcast(packets);
+    }
+
+    @Override
+    public void apply(@NotNull List<Change> changes) {
+        List<Object> packets = new ArrayList<>(changes.size());
+        changes.forEach(change -> collectPackets(change.previous(), change.current(), packets));
+        broadcast(packets);
+    }
+
+    @Override
+    public void remove(@NotNull TabTeam team) {
+        broadcast(List.of(removePacket(team)));
+    }
+
+    @Override
+    public void show(@NotNull Player viewer, @NotNull Collection<TabTeam> teams) {
+        if (viewers.add(viewer.getUniqueId())) {
+            send(viewer, teams.stream().map(packetFactory::create).toList());
+        }
+    }
+
+    @Override
+    public void hide(@NotNull Player viewer) {
+        viewers.remove(viewer.getUniqueId());
+    }
+
+    @Override
+    public int getTeamCount() {
+        return liveTeams.size();
+    }
+
+    /**
+     * Collects the packets required to turn the previous team into the current one.
+     *
+     * @param previous the {@link TabTeam} sent last, or {@code null} if none was sent so far
+     * @param current  the {@link TabTeam} to be sent
+     * @param packets  the list the packets are added to
+     */
+    private void collectPackets(@Nullable TabTeam previous, @NotNull TabTeam current, @NotNull List<Object> packets) {
+        if (Objects.isNull(previous) || !Objects.equals(previous.name(), current.name())) {
+            Optional.ofNullable(previous).map(this::removePacket).ifPresent(packets::add);
+            liveTeams.add(current.name());
+            packets.add(packetFactory.create(current));
+            return;
+        }
+        packets.add(packetFactory.modify(current));
+    }
+
+    private @NotNull Object removePacket(@NotNull TabTeam team) {
+        liveTeams.remove(team.name());
+        return packetFactory.remove(team);
+    }
+
+    /**
+     * Sends the specified packets to all viewers which already received the full set of teams.
+     *
+     * @param packets the packets to be sent
+     */
+    private void broadcast(@NotNull List<Object> packets) {
+        if (packets.isEmpty()) {
+            return;
+        }
+
+        List<Object> bundled = packetFactory.bundle(packets);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (viewers.contains(player.getUniqueId())) {
+                write(player, bundled);
+            }
+        }
+    }
+
+    /**
+     * Bundles and sends the specified packets to a single viewer.
+     *
+     * @param viewer  the {@link Player} receiving the packets
+     * @param packets the packets to be sent
+     */
+    private void send(@NotNull Player viewer, @NotNull List<Object> packets) {
+        write(viewer, packetFactory.bundle(packets));
+    }
+
+    private void write(@NotNull Player viewer, @NotNull List<Object> packets) {
+        if (packets.isEmpty()) {
+            return;
+        }
+
+        Channel channel = viewer.getConnection();
+        packets.forEach(channel::write);
+        channel.flush();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Reflection helpers shared by the renderers accessing server internals.
+ *
+ * <p>The methods wrap the checked exceptions of the reflective calls into a {@link RuntimeException}, so the callers
+ * can fall back to the regular way of sending once any of them fails.</p>
+ *
+ * @see TeamPacketFactory
+ * @see SystemChatEncoder
+ */
+final class Reflection {
+
+    private Reflection() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Invokes the specified method.
+     *
+     * @param method    the {@link Method} to invoke
+     * @param instance  the instance to invoke the method on, or {@code null} for static methods
+     * @param arguments the arguments of the method
+     * @return the result of the method
+     * @throws RuntimeException if the method is not accessible or threw an exception
+     */
+    static Object invoke(@NotNull Method method, Object instance, Object... arguments) {
+        try {
+            return method.invoke(instance, arguments);
+        } catch (IllegalAccessException | InvocationTargetException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Creates a new instance using the specified constructor.
+     *
+     * @param constructor the {@link Constructor} to call
+     * @param arguments   the arguments of the constructor
+     * @return the created instance
+     * @throws RuntimeException if the instance could not be created
+     */
+    static @NotNull Object newInstance(@NotNull Constructor<?> constructor, Object... arguments) {
+        try {
+            return constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Parses a constant of the specified enum from the configuration, ignoring the case.
+     *
+     * @param type     the type of the enum
+     * @param value    the configured value
+     * @param fallback the constant used if none matches
+     * @param <E>      the type of the enum
+     * @return the matching constant, or the fallback if none matches
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    static <E extends Enum<E>> @NotNull E parseEnum(@NotNull Class<E> type, @NotNull String value, @NotNull E fallback) {
+        return Arrays.stream(type.getEnumConstants()).filter(current -> current.name().equalsIgnoreCase(value)).findFirst().orElse(fallback);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Team renderer using the Bukkit scoreboard API.
+ *
+ * <p>The {@code ScoreboardTeamRenderer} class keeps one scoreboard for the entire lifetime of the tab render and moves
+ * every viewer onto it. Team changes are applied to that scoreboard, which lets the server send them to all
+ * viewers.</p>
+ *
+ * @see TeamRenderer
+ */
+public class ScoreboardTeamRenderer implements TeamRenderer {
+
+    private Scoreboard scoreboard;
+
+    /**
+     * Registers a new team if there was none before or if the name changed. Otherwise, only the values which differ
+     * from the previous version are updated, which causes one packet per changed value.
+     *
+     * @param player   the {@link Player} the team belongs to
+     * @param previous the {@link TabTeam} sent last, or {@code null} if none was sent so far
+     * @param current  the {@link TabTeam} to be sent
+     */
+    @Override
+    public void apply(@NotNull Player player, @Nullable TabTeam previous, @NotNull TabTeam current) {
+        Scoreboard scoreboard = getScoreboard();
+        Team team = Optional.ofNullable(previous).map(TabTeam::name).map(scoreboard::getTeam).orElse(null);
+
+        if (Objects.isNull(team) || !Objects.equals(previous.name(), current.name())) {
+            Optional.ofNullable(team).ifPresent(Team::unregister);
+            team = Optional.ofNullable(scoreboard.getTeam(current.name())).orElseGet(() -> scoreboard.registerNewTeam(current.name()));
+            prepareTeam(current, team).addPlayer(player);
+            return;
+        }
+
+        if (!Objects.equals(previous.prefix(), current.prefix())) {
+            team.prefix(current.prefix());
+        }
+        if (!Objects.equals(previous.suffix(), current.suffix())) {
+            team.suffix(current.suffix());
+        }
+        if (!Objects.equals(previous.color(), current.color())) {
+            team.color(current.color());
+        }
+    }
+
+    @Override
+    public void remove(@NotNull TabTeam team) {
+        Optional.ofNullable(getScoreboard().getTeam(team.name())).ifPresent(Team::unregister);
+    }
+
+    @Override
+    public void show(@NotNull Player viewer, @NotNull Collection<TabTeam> teams) {
+        Scoreboard scoreboard = getScoreboard();
+        if (viewer.getScoreboard() != scoreboard) {
+            viewer.setScoreboard(scoreboard);
+        }
+    }
+
+    @Override
+    public void hide(@NotNull Player viewer) {
+        // the server stops sending the scoreboard on its own
+    }
+
+    @Override
+    public int getTeamCount() {
+        return Objects.isNull(scoreboard) ? 0:scoreboard.getTeams().size();
+    }
+
+    /**
+     * Retrieves the scoreboard shared by all online players.
+     *
+     * <p>The scoreboard is created lazily and kept for the entire lifetime of the renderer, so that team changes only
+     * have to be sent for the teams that actually changed.</p>
+     *
+     * @return the shared {@link Scoreboard}
+     */
+    private @NotNull Scoreboard getScoreboard() {
+        if (Objects.isNull(scoreboard)) {
+            scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
+        }
+        return scoreboard;
+    }
+
+    /**
+     * Initializes the specified team with the prefix, suffix, and color of the given team data.
+     *
+     * <p>The {@code prepareTeam} method sets the prefix, suffix, and color for the team based on the computed
+     * {@link TabTeam}.</p>
+     *
+     * @param current the {@link TabTeam} containing the data
+     * @param team    the {@link Team} to be initialized
+     * @return the initialized {@link Team}
+     * @throws NullPointerException if either the data or team is `null`
+     * @see TabTeam
+     * @see Team
+     */
+    @Contract(value = "_, _ -> param2", mutates = "param2")
+    private @NotNull Team prepareTeam(@NotNull TabTeam current, @NotNull Team team) {
+        team.prefix(current.prefix());
+        team.suffix(current.suffix());
+        team.color(current.color());
+        return team;
+    }
+}
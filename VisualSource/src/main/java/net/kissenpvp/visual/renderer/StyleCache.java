@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import lombok.Getter;
+import net.kissenpvp.visual.InternalVisual;
+import net.kissenpvp.visual.api.theme.Theme;
+import net.kissenpvp.visual.theme.ThemeSnapshot;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TranslatableComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded cache of components styled by a {@link Theme}.
+ *
+ * <p>The {@code StyleCache} sits in front of {@link Theme#style(Component...)} and remembers the styled result of a
+ * component for the {@link ThemeSnapshot} it was styled with. As system messages are mostly the same few translatable
+ * components, styling them again for every receiver with the same colors can be skipped.</p>
+ *
+ * <p>Messages preceded by a system prefix are keyed by the raw prefix content instead of the parsed prefix, so a hit
+ * skips parsing the prefix as well. The parsed prefixes themselves are kept per theme and prefix content, so a miss
+ * only parses a prefix the first time it is used with a theme.</p>
+ *
+ * <p>The cache is bounded by the amount of entries and by their total weight, where the weight of an entry is the
+ * amount of nodes of the original and the styled component. If either bound is exceeded, the least recently used
+ * entries are evicted. Entries heavier than the weight bound itself are never cached.</p>
+ *
+ * <p>The cache exports the amount of hits, misses and evictions, which are reported on every lookup using
+ * {@link #report()}. This class is thread-safe.</p>
+ *
+ * @see KissenSystemMessageListener
+ * @see ThemeSnapshot
+ */
+public class StyleCache {
+
+    private static final int MAX_PREFIXES = 256;
+
+    @Getter private final boolean enabled;
+    @Getter private final int maxEntries;
+    @Getter private final long maxWeight;
+    private final LinkedHashMap<Key, Styled> entries;
+    private final Map<PrefixKey, Component> prefixes;
+    private final AtomicLong hits, misses, evictions;
+    private long weight;
+
+    /**
+     * Constructs a new style cache.
+     *
+     * @param enabled    whether components are cached at all
+     * @param maxEntries the maximum amount of cached components
+     * @param maxWeight  the maximum total weight of the cached components
+     */
+    public StyleCache(boolean enabled, int maxEntries, long maxWeight) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxWeight = Math.max(1, maxWeight);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.prefixes = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Styles the specified component using the specified theme, reusing a previous result if possible.
+     *
+     * <p>The lookup is keyed by the component and the {@link ThemeSnapshot} of the theme, so two themes with the same
+     * colors share their cached components. If the cache is disabled, the theme styles the component directly.</p>
+     *
+     * @param theme     the {@link Theme} to style the component with
+     * @param component the {@link Component} to style
+     * @return the styled component
+     * @throws NullPointerException if any of the parameters are `null`
+     * @see Theme#style(Component...)
+     */
+    public @NotNull Component style(@NotNull Theme theme, @NotNull Component component) {
+        if (!enabled) {
+            return theme.style(component);
+        }
+        return lookup(theme, new Key(component, ThemeSnapshot.of(theme), null));
+    }
+
+    /**
+     * Styles the specified component preceded by the system prefix with the specified content.
+     *
+     * <p>The prefix is rendered in the colors of the theme using
+     * {@link InternalVisual#getPrefix(net.kyori.adventure.text.format.TextColor, net.kyori.adventure.text.format.TextColor, String)}
+     * and separated from the component by a {@code »}. The lookup is keyed by the raw prefix content, so neither
+     * parsing the prefix nor styling the message happens on a hit.</p>
+     *
+     * @param theme     the {@link Theme} to style the component with
+     * @param prefix    the raw content of the system prefix
+     * @param component the {@link Component} to style
+     * @return the styled prefix followed by the styled component
+     * @throws NullPointerException if any of the parameters are `null`
+     * @see InternalVisual#getPersonalisedPrefix(net.kissenpvp.core.api.networking.client.entitiy.ServerEntity)
+     */
+    public @NotNull Component style(@NotNull Theme theme, @NotNull String prefix, @NotNull Component component) {
+        if (!enabled) {
+            return theme.style(prefix(theme, prefix).append(component));
+        }
+        return lookup(theme, new Key(component, ThemeSnapshot.of(theme), prefix));
+    }
+
+    /**
+     * Looks up the specified key, styling and storing the component on a miss.
+     *
+     * @param theme the {@link Theme} styling the component on a miss
+     * @param key   the {@link Key} to look up
+     * @return the styled component
+     */
+    private @NotNull Component lookup(@NotNull Theme theme, @NotNull Key key) {
+        report();
+        synchronized (entries) {
+            Styled cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.component();
+            }
+        }
+        misses.incrementAndGet();
+
+        Component component = key.prefix() == null ? key.component():prefix(key.theme(), key.prefix()).append(key.component());
+        Component styled = theme.style(component);
+        long entryWeight = weigh(component) + weigh(styled);
+        if (entryWeight <= maxWeight) {
+            put(key, new Styled(styled, entryWeight));
+        }
+        return styled;
+    }
+
+    /**
+     * Renders the system prefix with the specified content in the colors of the specified theme.
+     *
+     * <p>If the cache is enabled, the parsed prefix is kept per theme snapshot and content. These prefixes are cleared
+     * once more than {@link #MAX_PREFIXES} combinations are in use.</p>
+     *
+     * @param theme  the {@link Theme} providing the gradient colors
+     * @param prefix the raw content of the prefix
+     * @return the prefix followed by the separator
+     */
+    private @NotNull Component prefix(@NotNull Theme theme, @NotNull String prefix) {
+        if (!enabled) {
+            return parsePrefix(theme, prefix);
+        }
+
+        if (prefixes.size() > MAX_PREFIXES) {
+            prefixes.clear();
+        }
+        ThemeSnapshot snapshot = ThemeSnapshot.of(theme);
+        return prefixes.computeIfAbsent(new PrefixKey(snapshot, prefix), (ignored) -> parsePrefix(snapshot, prefix));
+    }
+
+    private static @NotNull Component parsePrefix(@NotNull Theme theme, @NotNull String prefix) {
+        InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+        Component parsed = internalVisual.getPrefix(theme.getPrimaryColor(), theme.getSecondaryColor(), prefix);
+        return parsed.appendSpace().append(Component.text("»")).appendSpace();
+    }
+
+    /**
+     * Removes all cached components.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+        prefixes.clear();
+    }
+
+    /**
+     * Returns the amount of components currently cached.
+     *
+     * @return the amount of cached components
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the total weight of the components currently cached.
+     *
+     * @return the total weight of the cached components
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /**
+     * Returns the amount of lookups answered from the cache.
+     *
+     * @return the amount of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the amount of lookups that required styling the component.
+     *
+     * @return the amount of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the amount of entries removed to satisfy the bounds of this cache.
+     *
+     * @return the amount of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the hit rate between {@code 0} and {@code 1}, or {@code 0} if nothing was looked up yet
+     */
+    public double getHitRate() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0:(double) hit / total;
+    }
+
+    /**
+     * Reports the metrics of this cache to the log of the plugin.
+     *
+     * <p>The size, weight, hits, misses and evictions are logged at {@link Level#FINE}, the same way
+     * {@link KissenTabRender#reportTeams()} reports the tab teams.</p>
+     *
+     * @see #getHitRate()
+     */
+    public void report() {
+        Logger logger = InternalVisual.getPlugin(InternalVisual.class).getLogger();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Style cache: %d entries, %d weight, %d hits, %d misses, %.2f hit rate, %d evictions", getSize(), getWeight(), getHits(), getMisses(), getHitRate(), getEvictions()));
+        }
+    }
+
+    /**
+     * Stores the specified entry and evicts the least recently used entries until both bounds are satisfied.
+     *
+     * @param key    the {@link Key} of the entry
+     * @param styled the {@link Styled} component to store
+     */
+    private void put(@NotNull Key key, @NotNull Styled styled) {
+        synchronized (entries) {
+            Styled previous = entries.put(key, styled);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += styled.weight();
+
+            Iterator<Styled> iterator = entries.values().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+                weight -= iterator.next().weight();
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Estimates the weight of the specified component by counting its nodes, including translation arguments.
+     *
+     * @param component the {@link Component} to weigh
+     * @return the amount of nodes of the component
+     */
+    private static long weigh(@NotNull Component component) {
+        long nodes = 1;
+        if (component instanceof TranslatableComponent translatableComponent) {
+            for (ComponentLike argument : translatableComponent.arguments()) {
+                nodes += weigh(argument.asComponent());
+            }
+        }
+        for (Component child : component.children()) {
+            nodes += weigh(child);
+        }
+        return nodes;
+    }
+
+    /**
+     * Identifies a component styled with a specific theme.
+     *
+     * @param component the original {@link Component}
+     * @param theme     the {@link ThemeSnapshot} the component is styled with
+     * @param prefix    the raw content of the system prefix preceding the component, or {@code null} if there is none
+     */
+    private record Key(@NotNull Component component, @NotNull ThemeSnapshot theme, @Nullable String prefix) {}
+
+    /**
+     * Identifies a parsed system prefix.
+     *
+     * @param theme  the {@link ThemeSnapshot} providing the gradient colors
+     * @param prefix the raw content of the prefix
+     */
+    private record PrefixKey(@NotNull ThemeSnapshot theme, @NotNull String prefix) {}
+
+    /**
+     * A cached styled component.
+     *
+     * @param component the styled {@link Component}
+     * @param weight    the weight of the entry
+     */
+    private record Styled(@NotNull Component component, long weight) {}
+}
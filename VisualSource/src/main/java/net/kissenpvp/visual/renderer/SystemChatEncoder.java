@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.translation.GlobalTranslator;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Encoder creating pre-serialized system chat packets using reflection.
+ *
+ * <p>The {@code SystemChatEncoder} class serializes a system chat packet once into a buffer, which already contains
+ * the packet id and payload in the format the server's packet encoder would produce. Such a buffer passes the packet
+ * encoder of each connection untouched and is only framed, compressed and encrypted per connection, so a message sent
+ * to many viewers is serialized only once instead of once per viewer.</p>
+ *
+ * <p>All reflective lookups happen once in the constructor, which fails with a {@link ReflectiveOperationException}
+ * if the server does not provide the expected classes.</p>
+ *
+ * @see ChatBatcher
+ */
+public class SystemChatEncoder {
+
+    private final Constructor<?> packetConstructor;
+    private final Method asVanilla, encode;
+    private final Object codec;
+
+    /**
+     * Looks up all classes and members required to encode system chat packets.
+     *
+     * @throws ReflectiveOperationException if the server does not provide the expected classes or members
+     */
+    public SystemChatEncoder() throws ReflectiveOperationException {
+        Class<?> serverClass = Class.forName("net.minecraft.server.MinecraftServer");
+        Class<?> registryAccessClass = Class.forName("net.minecraft.core.RegistryAccess");
+        Class<?> bufferClass = Class.forName("net.minecraft.network.RegistryFriendlyByteBuf");
+        Class<?> protocolsClass = Class.forName("net.minecraft.network.protocol.game.GameProtocols");
+        Class<?> protocolInfoClass = Class.forName("net.minecraft.network.ProtocolInfo");
+        Class<?> streamCodecClass = Class.forName("net.minecraft.network.codec.StreamCodec");
+        Class<?> componentClass = Class.forName("net.minecraft.network.chat.Component");
+        Class<?> packetClass = Class.forName("net.minecraft.network.protocol.game.ClientboundSystemChatPacket");
+        Class<?> adventureClass = Class.forName("io.papermc.paper.adventure.PaperAdventure");
+
+        Object server = serverClass.getMethod("getServer").invoke(null);
+        Object registryAccess = serverClass.getMethod("registryAccess").invoke(server);
+        Object decorator = bufferClass.getMethod("decorator", registryAccessClass).invoke(null, registryAccess);
+
+        Object clientbound = protocolsClass.getField("CLIENTBOUND").get(null);
+        Object protocolInfo;
+        if (clientbound instanceof Function<?, ?> factory) {
+            protocolInfo = apply(factory, decorator);
+        } else {
+            Class<?> unboundClass = Class.forName("net.minecraft.network.ProtocolInfo$Unbound");
+            protocolInfo = unboundClass.getMethod("bind", Function.class).invoke(clientbound, decorator);
+        }
+
+        codec = protocolInfoClass.getMethod("codec").invoke(protocolInfo);
+        encode = streamCodecClass.getMethod("encode", Object.class, Object.class);
+        packetConstructor = packetClass.getConstructor(componentClass, boolean.class);
+        asVanilla = adventureClass.getMethod("asVanilla", Component.class);
+    }
+
+    /**
+     * Serializes a system chat packet containing the specified component, translated into the specified locale.
+     *
+     * <p>The returned buffer has a reference count of one. To send it to several connections, each connection has to
+     * be given a {@link ByteBuf#retainedDuplicate()} of it and the buffer has to be released afterwards.</p>
+     *
+     * @param component the {@link Component} to send
+     * @param locale    the {@link Locale} the component is translated into
+     * @return the buffer containing the packet id and payload
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    public @NotNull ByteBuf encode(@NotNull Component component, @NotNull Locale locale) {
+        Object vanilla = Reflection.invoke(asVanilla, null, GlobalTranslator.render(component, locale));
+        Object packet = Reflection.newInstance(packetConstructor, vanilla, false);
+
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            Reflection.invoke(encode, codec, buffer, packet);
+            return buffer;
+        } catch (RuntimeException exception) {
+            buffer.release();
+            throw exception;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object apply(@NotNull Function<?, ?> factory, Object argument) {
+        return ((Function<Object, Object>) factory).apply(argument);
+    }
+}
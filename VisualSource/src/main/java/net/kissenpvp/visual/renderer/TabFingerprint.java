@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Fingerprint of the tab header and footer last sent to a player.
+ *
+ * <p>The {@code TabFingerprint} record describes the content of the header and footer by the {@link TabTemplate} and
+ * the values filled into its slots. Comparing two fingerprints is therefore enough to decide whether a header or
+ * footer has to be sent again.</p>
+ *
+ * @param template the {@link TabTemplate} the header and footer were rendered from
+ * @param online   the amount of online players shown in the header
+ * @param max      the maximum amount of players shown in the header
+ * @param ping     the ping shown in the footer
+ * @see KissenTabRender
+ */
+public record TabFingerprint(@NotNull TabTemplate template, int online, int max, int ping) {
+
+    /**
+     * Checks whether the header described by this fingerprint differs from the one described by the previous.
+     *
+     * @param previous the fingerprint last sent, or {@code null} if nothing has been sent yet
+     * @return {@code true} if the header has to be sent again, {@code false} otherwise
+     */
+    public boolean headerChanged(@Nullable TabFingerprint previous) {
+        return Objects.isNull(previous) || !Objects.equals(template(), previous.template()) || online() != previous.online() || max() != previous.max();
+    }
+
+    /**
+     * Checks whether the footer described by this fingerprint differs from the one described by the previous.
+     *
+     * <p>A change of the ping is only considered as such when it exceeds the specified hysteresis, so a jitter of
+     * a few milliseconds does not cause the footer to be sent again.</p>
+     *
+     * @param previous   the fingerprint last sent, or {@code null} if nothing has been sent yet
+     * @param hysteresis the amount of milliseconds the ping may change without being considered a change
+     * @return {@code true} if the footer has to be sent again, {@code false} otherwise
+     */
+    public boolean footerChanged(@Nullable TabFingerprint previous, int hysteresis) {
+        return Objects.isNull(previous) || !Objects.equals(template(), previous.template()) || Math.abs(ping() - previous.ping()) > hysteresis;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Ordering engine assigning compact sort keys to the teams of the tab list.
+ *
+ * <p>The client sorts the tab list by team name. The {@code TabOrdering} class therefore derives team names which
+ * sort correctly as plain strings. The key starts with the rank priority, encoded as fixed-width base 36 number, so
+ * negative priorities and priorities of different digit lengths sort numerically. It is followed by the configured
+ * secondary key, which is either the lower case name of the player or the order in which the players joined.</p>
+ *
+ * <p>A key only depends on the player it belongs to. A priority change therefore only changes the keys of the players
+ * holding the affected rank, so only their teams have to be renamed.</p>
+ *
+ * @see TabTeam
+ */
+public class TabOrdering {
+
+    private static final int RADIX = 36;
+    private static final int PRIORITY_WIDTH = 7; // 36^7 > 2^32
+    private static final int JOIN_WIDTH = 6;
+
+    private final Secondary secondary;
+    private final Map<UUID, Long> joinOrder;
+    private long joinCounter;
+
+    /**
+     * Constructs a new ordering using the specified secondary key.
+     *
+     * @param secondary the {@link Secondary} key sorting players with the same priority
+     * @throws NullPointerException if the secondary key is `null`
+     */
+    public TabOrdering(@NotNull Secondary secondary) {
+        this.secondary = secondary;
+        this.joinOrder = new HashMap<>();
+    }
+
+    /**
+     * Encodes the specified value as fixed-width base 36 number.
+     *
+     * @param value the non-negative value to encode
+     * @param width the amount of characters of the result
+     * @return the encoded value, padded with leading zeros
+     */
+    private static @NotNull String encode(long value, int width) {
+        String encoded = Long.toString(value, RADIX);
+        return "0".repeat(Math.max(0, width - encoded.length())) + encoded;
+    }
+
+    /**
+     * Assigns the sort key of the specified player.
+     *
+     * <p>The key is recalculated from the current rank priority of the player.</p>
+     *
+     * @param player the {@link Player} to assign the key to
+     * @return the sort key of the player, which is used as team name
+     * @throws NullPointerException if the player is `null`
+     */
+    public @NotNull String assign(@NotNull Player player) {
+        long priority = (long) player.getRank().getSource().getPriority() - Integer.MIN_VALUE;
+        return encode(priority, PRIORITY_WIDTH) + secondaryKey(player);
+    }
+
+    /**
+     * Removes the specified player from the ordering.
+     *
+     * @param uuid the unique id of the player to remove
+     * @throws NullPointerException if the unique id is `null`
+     */
+    public void remove(@NotNull UUID uuid) {
+        joinOrder.remove(uuid);
+    }
+
+    private @NotNull String secondaryKey(@NotNull Player player) {
+        return switch (secondary) {
+            case NAME -> player.getName().toLowerCase(Locale.ROOT);
+            case JOIN_TIME -> encode(joinOrder.computeIfAbsent(player.getUniqueId(), uuid -> joinCounter++), JOIN_WIDTH);
+        };
+    }
+
+    /**
+     * Key sorting players with the same rank priority.
+     */
+    public enum Secondary {
+        NAME,
+        JOIN_TIME;
+
+        /**
+         * Parses the secondary key from the configuration.
+         *
+         * @param value the configured value
+         * @return the matching {@link Secondary}, or {@link #NAME} if none matches
+         * @throws NullPointerException if the value is `null`
+         */
+        public static @NotNull Secondary parse(@NotNull String value) {
+            return Reflection.parseEnum(Secondary.class, value, NAME);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Spreads the tab refresh of all online players evenly across the refresh period.
+ *
+ * <p>The {@code TabRefreshScheduler} is meant to run every tick. It walks a fixed cycle of {@link #getPeriod()}
+ * ticks: at the start of each cycle the online players are collected, and every tick of the cycle refreshes the next
+ * slice of them. Each player is therefore refreshed exactly once per period, no matter how few players are online,
+ * while the cost per tick stays flat. Players joining during a cycle are picked up by the next one.</p>
+ *
+ * <p>When the server's TPS drop below the configured threshold, the period of the next cycle is stretched
+ * proportionally to the lost ticks, but never beyond the configured maximum period.</p>
+ *
+ * @see KissenTabRender
+ */
+public class TabRefreshScheduler implements Runnable {
+
+    private final Consumer<List<Player>> refresh;
+    private final int basePeriod, maxPeriod;
+    private final double tpsThreshold;
+    @Getter private int period;
+    private List<Player> cycle;
+    private int tick;
+
+    /**
+     * Constructs a new scheduler refreshing players using the specified consumer.
+     *
+     * @param refresh      the {@link Consumer} refreshing a bucket of players
+     * @param basePeriod   the amount of ticks in which every player is refreshed once
+     * @param tpsThreshold the TPS below which the period is stretched
+     * @param maxPeriod    the maximum amount of ticks the period may be stretched to
+     * @throws NullPointerException if the consumer is `null`
+     */
+    public TabRefreshScheduler(@NotNull Consumer<List<Player>> refresh, int basePeriod, double tpsThreshold, int maxPeriod) {
+        this.refresh = refresh;
+        this.basePeriod = Math.max(1, basePeriod);
+        this.maxPeriod = Math.max(this.basePeriod, maxPeriod);
+        this.tpsThreshold = tpsThreshold;
+        this.period = this.basePeriod;
+        this.cycle = List.of();
+    }
+
+    @Override
+    public void run() {
+        if (tick == 0) {
+            period = calculatePeriod(Bukkit.getTPS()[0]);
+            cycle = new ArrayList<>(Bukkit.getOnlinePlayers());
+        }
+
+        int size = cycle.size();
+        int from = (int) ((long) tick * size / period);
+        int to = (int) ((long) (tick + 1) * size / period);
+        tick = (tick + 1) % period;
+        if (from == to) {
+            return;
+        }
+
+        List<Player> bucket = new ArrayList<>(to - from);
+        for (Player player : cycle.subList(from, to)) {
+            if (player.isOnline()) {
+                bucket.add(player);
+            }
+        }
+        refresh.accept(bucket);
+    }
+
+    /**
+     * Calculates the refresh period based on the current TPS.
+     *
+     * <p>Above the threshold, the base period is used. Below it, the base period is stretched by the ratio between
+     * the target of 20 TPS and the current TPS, limited by the maximum period.</p>
+     *
+     * @param tps the current TPS of the server
+     * @return the amount of ticks in which every player is refreshed once
+     */
+    private int calculatePeriod(double tps) {
+        if (tps >= tpsThreshold) {
+            return basePeriod;
+        }
+        double stretch = 20d / Math.max(tps, 1d);
+        return (int) Math.min(maxPeriod, Math.ceil(basePeriod * stretch));
+    }
+}
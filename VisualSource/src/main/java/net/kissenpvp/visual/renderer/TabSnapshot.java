@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import net.kissenpvp.visual.InternalVisual;
+import net.kissenpvp.visual.theme.ThemeSnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable snapshot of everything required to render the tab header and footer of a player.
+ *
+ * <p>The {@code TabSnapshot} record is captured on the main thread, so the rendering of the header and footer can
+ * happen asynchronously without accessing the player or its settings. The player itself is only kept to send the
+ * rendered components on the main thread again.</p>
+ *
+ * @param player the {@link Player} receiving the header and footer
+ * @param theme  the {@link ThemeSnapshot} containing the colors of the player
+ * @param prefix the personalised prefix content of the player
+ * @param online the amount of online players
+ * @param max    the maximum amount of players
+ * @param ping   the ping of the player
+ * @see KissenTabRender
+ */
+public record TabSnapshot(@NotNull Player player, @NotNull ThemeSnapshot theme, @NotNull String prefix, int online, int max, int ping) {
+
+    /**
+     * Captures the current state of the specified player.
+     *
+     * <p>This method must be called on the main thread.</p>
+     *
+     * @param player the {@link Player} to capture
+     * @return the captured {@link TabSnapshot}
+     * @throws NullPointerException if the player is `null`
+     */
+    public static @NotNull TabSnapshot capture(@NotNull Player player) {
+        InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+        ThemeSnapshot theme = ThemeSnapshot.of(internalVisual.getEntity(player).getTheme());
+        String prefix = internalVisual.getPersonalisedPrefix(player);
+        return new TabSnapshot(player, theme, prefix, Bukkit.getOnlinePlayers().size(), Bukkit.getMaxPlayers(), player.getPing());
+    }
+}
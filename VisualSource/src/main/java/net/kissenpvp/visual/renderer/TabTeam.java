@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import net.kissenpvp.visual.api.entity.VisualEntity;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shadow copy of the scoreboard team representing a single player in the tab list.
+ *
+ * <p>The {@code TabTeam} record holds everything the client knows about a player's team, which is the team name
+ * (used as sort key), the entry (the name of the player), the prefix, the suffix and the color. The {@link KissenTabRender} compares the shadow copies
+ * against freshly computed ones in order to only send the teams whose data actually changed.</p>
+ *
+ * @param name   the name of the team, which also determines the position in the tab list
+ * @param entry  the name of the player, which is the only entry of the team
+ * @param prefix the prefix of the team, {@link Component#empty()} if there is none
+ * @param suffix the suffix of the team, {@link Component#empty()} if there is none
+ * @param color  the color of the team
+ * @see KissenTabRender
+ */
+public record TabTeam(@NotNull String name, @NotNull String entry, @NotNull Component prefix, @NotNull Component suffix, @NotNull NamedTextColor color) {
+
+    /**
+     * Computes the team data of the specified player.
+     *
+     * <p>The team name is the sort key assigned by the {@link TabOrdering}. Prefix and suffix are separated by a
+     * space from the name of the player.</p>
+     *
+     * @param player       the {@link Player} for whom the team data is computed
+     * @param visualEntity the {@link VisualEntity} of the player
+     * @param name         the sort key of the player, used as team name
+     * @return the computed {@link TabTeam}
+     * @throws NullPointerException if any of the parameters are `null`
+     * @see TabOrdering#assign(Player)
+     */
+    public static @NotNull TabTeam of(@NotNull Player player, @NotNull VisualEntity<?> visualEntity, @NotNull String name) {
+        Component prefix = visualEntity.getPrefixComponent().map(Component::appendSpace).orElseGet(Component::empty);
+        Component suffix = visualEntity.getSuffixComponent().map(content -> Component.space().append(content)).orElseGet(Component::empty);
+        return new TabTeam(name, player.getName(), prefix, suffix, NamedTextColor.nearestTo(visualEntity.getNameColor()));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import net.kissenpvp.visual.api.theme.Theme;
+import net.kissenpvp.visual.theme.DefaultTheme;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Pre-rendered tab header and footer of a theme and prefix combination.
+ *
+ * <p>The {@code TabTemplate} record contains the parts of the tab header and footer which do not change between two
+ * refreshes, which is the already styled prefix and the colors of the theme. The dynamic values, which are the online
+ * players, the maximum players and the ping, are filled into their slots using {@link #header(int, int)} and
+ * {@link #footer(int)} without parsing or styling the whole component tree again.</p>
+ *
+ * @param prefix    the styled prefix filled into the first slot of the header
+ * @param general   the general color of the theme, used for the translatable components
+ * @param highlight the highlight color of the theme, used for the dynamic slots
+ * @see TabTemplateCache
+ */
+public record TabTemplate(@NotNull Component prefix, @NotNull TextColor general, @NotNull TextColor highlight) {
+
+    private static final String HEADER = "visual.tab.header";
+    private static final String FOOTER = "visual.tab.footer";
+
+    /**
+     * Creates a template from the specified theme and prefix.
+     *
+     * <p>The prefix is styled the same way {@link Theme#style(Component...)} styles arguments of translatable
+     * components.</p>
+     *
+     * @param theme  the {@link Theme} of the receiving player
+     * @param prefix the unstyled prefix of the receiving player
+     * @return the created {@link TabTemplate}
+     * @throws NullPointerException if either parameter is `null`
+     */
+    public static @NotNull TabTemplate of(@NotNull Theme theme, @NotNull Component prefix) {
+        if (theme instanceof DefaultTheme defaultTheme) {
+            return new TabTemplate(defaultTheme.styleArgument(prefix), theme.getGeneralColor(), highlightOf(theme));
+        }
+        return new TabTemplate(theme.style(prefix), theme.getGeneralColor(), highlightOf(theme));
+    }
+
+    /**
+     * Retrieves the color the specified theme uses for arguments of translatable components.
+     *
+     * @param theme the {@link Theme} to retrieve the color from
+     * @return the highlight color of the theme
+     * @throws NullPointerException if the theme is `null`
+     */
+    public static @NotNull TextColor highlightOf(@NotNull Theme theme) {
+        if (theme instanceof DefaultTheme defaultTheme) {
+            return defaultTheme.getHighlightColor();
+        }
+        return theme.getPrimaryColor();
+    }
+
+    /**
+     * Fills the header template with the current player count.
+     *
+     * @param online the amount of online players
+     * @param max    the maximum amount of players
+     * @return the styled header
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public @NotNull Component header(int online, int max) {
+        return Component.translatable(HEADER, general(), prefix(), slot(online), slot(max));
+    }
+
+    /**
+     * Fills the footer template with the current ping.
+     *
+     * @param ping the ping of the receiving player
+     * @return the styled footer
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public @NotNull Component footer(int ping) {
+        return Component.translatable(FOOTER, general(), slot(ping));
+    }
+
+    @Contract(value = "_ -> new", pure = true)
+    private @NotNull Component slot(int value) {
+        return Component.text(value, highlight());
+    }
+}
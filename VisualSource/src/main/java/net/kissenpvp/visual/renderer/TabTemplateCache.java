@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import net.kissenpvp.visual.InternalVisual;
+import net.kissenpvp.visual.theme.ThemeSnapshot;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the {@link TabTemplate}s of all theme and prefix combinations in use.
+ *
+ * <p>The {@code TabTemplateCache} class keys the templates by the interned {@link ThemeSnapshot} of the receiving
+ * player and the content of the prefix. As most players share the default theme and prefix, the MiniMessage parsing and styling of
+ * the prefix only happens once for all of them. The cache is cleared once it exceeds {@link #MAX_SIZE} entries,
+ * which only happens when the combinations in use change a lot.</p>
+ *
+ * @see TabTemplate
+ */
+public class TabTemplateCache {
+
+    private static final int MAX_SIZE = 256;
+
+    private final Map<Key, TabTemplate> templates;
+
+    public TabTemplateCache() {
+        this.templates = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves the template of the specified theme and prefix, rendering it if not cached yet.
+     *
+     * @param theme  the {@link ThemeSnapshot} of the receiving player
+     * @param prefix the personalised prefix content of the receiving player
+     * @return the cached or newly rendered {@link TabTemplate}
+     * @throws NullPointerException if either parameter is `null`
+     * @see InternalVisual#getPersonalisedPrefix(net.kissenpvp.core.api.networking.client.entitiy.ServerEntity)
+     */
+    public @NotNull TabTemplate get(@NotNull ThemeSnapshot theme, @NotNull String prefix) {
+        Key key = new Key(theme, prefix);
+
+        if (templates.size() > MAX_SIZE) {
+            templates.clear();
+        }
+
+        return templates.computeIfAbsent(key, (ignored) -> {
+            InternalVisual internalVisual = InternalVisual.getPlugin(InternalVisual.class);
+            return TabTemplate.of(theme, internalVisual.getPrefix(theme.getPrimaryColor(), theme.getSecondaryColor(), prefix));
+        });
+    }
+
+    public void clear() {
+        templates.clear();
+    }
+
+    private record Key(@NotNull ThemeSnapshot theme, @NotNull String prefix) { }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import net.kissenpvp.core.api.event.EventListener;
+import net.kissenpvp.visual.InternalVisual;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces tab updates of a tick into a single batched update.
+ *
+ * <p>The {@code TabUpdateScheduler} collects the players which were marked as changed during a tick in a dirty set.
+ * At the end of the tick, each dirty player is updated exactly once using {@link KissenTabRender#update(Player)}, no
+ * matter how often the player was marked. This way, changing a rank held by hundreds of players only causes one update
+ * per player instead of one full rebuild per event.</p>
+ *
+ * <p>Joining players are collected separately for a configurable window of ticks and handed to
+ * {@link KissenTabRender#join(Collection)} as one batch, so a storm of joins results in one update instead of one per
+ * join.</p>
+ *
+ * <p>The scheduler counts the requested and the executed updates, so the amount of coalesced updates can be
+ * verified using {@link #getCoalesced()}. After each flush, these metrics are logged on the {@link Level#FINE} level
+ * and the team metrics are reported using {@link KissenTabRender#reportTeams()}.</p>
+ *
+ * @see KissenTabRender
+ * @see ServerTickEndEvent
+ */
+public class TabUpdateScheduler implements EventListener<ServerTickEndEvent> {
+
+    private final KissenTabRender tabRender;
+    private final Set<UUID> dirty, joined;
+    private final AtomicLong requested, executed, flushes;
+    private final int joinWindow;
+    private int joinTicks;
+    private long joinBatches;
+
+    /**
+     * Constructs a new scheduler flushing into the specified tab render.
+     *
+     * @param tabRender  the {@link KissenTabRender} which updates the dirty players
+     * @param joinWindow the amount of ticks joining players are collected before they are updated
+     * @throws NullPointerException if the tab render is `null`
+     */
+    public TabUpdateScheduler(@NotNull KissenTabRender tabRender, int joinWindow) {
+        this.tabRender = tabRender;
+        this.joinWindow = Math.max(0, joinWindow);
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.joined = new LinkedHashSet<>();
+        this.requested = new AtomicLong();
+        this.executed = new AtomicLong();
+        this.flushes = new AtomicLong();
+    }
+
+    /**
+     * Marks the specified player as changed, so the tab is updated at the end of the current tick.
+     *
+     * <p>This method is thread-safe and can therefore be called from asynchronous events as well.</p>
+     *
+     * @param player the {@link Player} whose tab data changed
+     * @throws NullPointerException if the player is `null`
+     */
+    public void markDirty(@NotNull Player player) {
+        requested.incrementAndGet();
+        dirty.add(player.getUniqueId());
+    }
+
+    /**
+     * Marks the specified player as joined, so its team is sent with the next batch of joins.
+     *
+     * <p>This method must be called on the main thread.</p>
+     *
+     * @param player the {@link Player} who joined
+     * @throws NullPointerException if the player is `null`
+     */
+    public void markJoined(@NotNull Player player) {
+        joined.add(player.getUniqueId());
+    }
+
+    @Override
+    public void call(@NotNull ServerTickEndEvent event) {
+        boolean flushed = false;
+        if (!joined.isEmpty() && joinTicks++ >= joinWindow) {
+            flushed = flushJoins();
+        }
+        if (flushDirty() || flushed) {
+            report();
+        }
+    }
+
+    /**
+     * Reports the coalescing metrics and the team metrics of the tab render.
+     *
+     * <p>The amount of requested, executed and coalesced updates is logged on the {@link Level#FINE} level, the same
+     * way {@link KissenTabRender#reportTeams()} logs the team metrics.</p>
+     */
+    private void report() {
+        Logger logger = InternalVisual.getPlugin(InternalVisual.class).getLogger();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Tab updates: %d requested, %d executed, %d coalesced in %d flushes and %d join batches", getRequested(), getExecuted(), getCoalesced(), getFlushes(), getJoinBatches()));
+        }
+        tabRender.reportTeams();
+    }
+
+    /**
+     * Updates all players who joined within the current window as one batch.
+     *
+     * @return {@code true} if any player was updated
+     */
+    private boolean flushJoins() {
+        List<Player> players = joined.stream().map(Bukkit::getPlayer).filter(Objects::nonNull).toList();
+        joined.clear();
+        joinTicks = 0;
+
+        if (players.isEmpty()) {
+            return false;
+        }
+
+        tabRender.join(players);
+        joinBatches++;
+        return true;
+    }
+
+    /**
+     * Updates every player marked as dirty once.
+     *
+     * @return {@code true} if any player was marked as dirty
+     */
+    private boolean flushDirty() {
+        if (dirty.isEmpty()) {
+            return false;
+        }
+
+        flushes.incrementAndGet();
+        for (UUID uuid : dirty) {
+            dirty.remove(uuid);
+            Player player = Bukkit.getPlayer(uuid);
+            if (Objects.nonNull(player)) {
+                tabRender.update(player);
+                executed.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the total amount of updates requested using {@link #markDirty(Player)}.
+     *
+     * @return the amount of requested updates
+     */
+    public long getRequested() {
+        return requested.get();
+    }
+
+    /**
+     * Returns the total amount of updates actually executed.
+     *
+     * @return the amount of executed updates
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Returns the amount of requested updates which have been merged into another update.
+     *
+     * <p>Updates which are still pending or whose player went offline before the flush are counted as well.</p>
+     *
+     * @return the amount of coalesced updates
+     */
+    public long getCoalesced() {
+        return getRequested() - getExecuted();
+    }
+
+    /**
+     * Returns the amount of ticks in which at least one update was executed.
+     *
+     * @return the amount of flushes
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    /**
+     * Returns the amount of join batches sent so far.
+     *
+     * @return the amount of join batches
+     */
+    public long getJoinBatches() {
+        return joinBatches;
+    }
+}
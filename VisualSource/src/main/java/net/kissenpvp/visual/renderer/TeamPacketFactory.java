@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Factory creating the server's team packets using reflection.
+ *
+ * <p>The {@code TeamPacketFactory} class creates the team packets from a detached server scoreboard, which is never
+ * sent to any player. Therefore, creating packets does not register any team on the server. All reflective lookups
+ * happen once in the constructor, which fails with a {@link ReflectiveOperationException} if the server does not
+ * provide the expected classes.</p>
+ *
+ * @see PacketTeamRenderer
+ */
+public class TeamPacketFactory {
+
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private final Object scoreboard;
+    private final Constructor<?> teamConstructor, bundleConstructor;
+    private final Method setPrefix, setSuffix, setColor, getPlayers, addOrModify, remove, asVanilla;
+    private final Map<String, Object> chatFormatting;
+
+    /**
+     * Looks up all classes and members required to create team packets.
+     *
+     * @throws ReflectiveOperationException if the server does not provide the expected classes or members
+     */
+    public TeamPacketFactory() throws ReflectiveOperationException {
+        Class<?> scoreboardClass = Class.forName("net.minecraft.world.scores.Scoreboard");
+        Class<?> teamClass = Class.forName("net.minecraft.world.scores.PlayerTeam");
+        Class<?> componentClass = Class.forName("net.minecraft.network.chat.Component");
+        Class<?> packetClass = Class.forName("net.minecraft.network.protocol.game.ClientboundSetPlayerTeamPacket");
+        Class<?> bundleClass = Class.forName("net.minecraft.network.protocol.game.ClientboundBundlePacket");
+        Class<?> adventureClass = Class.forName("io.papermc.paper.adventure.PaperAdventure");
+        Class<?> chatFormattingClass = Class.forName("net.minecraft.ChatFormatting");
+
+        scoreboard = scoreboardClass.getConstructor().newInstance();
+        teamConstructor = teamClass.getConstructor(scoreboardClass, String.class);
+        bundleConstructor = bundleClass.getConstructor(Iterable.class);
+        setPrefix = teamClass.getMethod("setPlayerPrefix", componentClass);
+        setSuffix = teamClass.getMethod("setPlayerSuffix", componentClass);
+        setColor = teamClass.getMethod("setColor", chatFormattingClass);
+        getPlayers = teamClass.getMethod("getPlayers");
+        addOrModify = packetClass.getMethod("createAddOrModifyPacket", teamClass, boolean.class);
+        remove = packetClass.getMethod("createRemovePacket", teamClass);
+        asVanilla = adventureClass.getMethod("asVanilla", net.kyori.adventure.text.Component.class);
+
+        chatFormatting = new HashMap<>();
+        for (Object constant : chatFormattingClass.getEnumConstants()) {
+            chatFormatting.put(((Enum<?>) constant).name(), constant);
+        }
+    }
+
+    /**
+     * Creates a packet adding the specified team including its entry.
+     *
+     * @param team the {@link TabTeam} to be added
+     * @return the created packet
+     * @throws NullPointerException if the team is `null`
+     */
+    public @NotNull Object create(@NotNull TabTeam team) {
+        return Reflection.invoke(addOrModify, null, toServerTeam(team), true);
+    }
+
+    /**
+     * Creates a packet updating the prefix, suffix and color of the specified team.
+     *
+     * @param team the {@link TabTeam} to be updated
+     * @return the created packet
+     * @throws NullPointerException if the team is `null`
+     */
+    public @NotNull Object modify(@NotNull TabTeam team) {
+        return Reflection.invoke(addOrModify, null, toServerTeam(team), false);
+    }
+
+    /**
+     * Creates a packet removing the specified team.
+     *
+     * @param team the {@link TabTeam} to be removed
+     * @return the created packet
+     * @throws NullPointerException if the team is `null`
+     */
+    public @NotNull Object remove(@NotNull TabTeam team) {
+        return Reflection.invoke(remove, null, toServerTeam(team));
+    }
+
+    /**
+     * Wraps the specified packets into bundles, so the client processes each bundle within the same tick.
+     *
+     * <p>A single packet is not wrapped at all. Collections exceeding the maximum bundle size are split into several
+     * bundles.</p>
+     *
+     * @param packets the packets to be bundled
+     * @return the packets to be sent
+     * @throws NullPointerException if the collection is `null`
+     */
+    public @NotNull List<Object> bundle(@NotNull Collection<Object> packets) {
+        if (packets.size() <= 1) {
+            return List.copyOf(packets);
+        }
+
+        List<Object> bundles = new ArrayList<>();
+        List<Object> current = new ArrayList<>(Math.min(packets.size(), MAX_BUNDLE_SIZE));
+        for (Object packet : packets) {
+            current.add(packet);
+            if (current.size() == MAX_BUNDLE_SIZE) {
+                bundles.add(Reflection.newInstance(bundleConstructor, current));
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            bundles.add(Reflection.newInstance(bundleConstructor, current));
+        }
+        return bundles;
+    }
+
+    /**
+     * Converts the specified team data into a detached server team.
+     *
+     * @param team the {@link TabTeam} to convert
+     * @return the server team
+     */
+    @SuppressWarnings("unchecked")
+    private @NotNull Object toServerTeam(@NotNull TabTeam team) {
+        Object serverTeam = Reflection.newInstance(teamConstructor, scoreboard, team.name());
+        Reflection.invoke(setPrefix, serverTeam, Reflection.invoke(asVanilla, null, team.prefix()));
+        Reflection.invoke(setSuffix, serverTeam, Reflection.invoke(asVanilla, null, team.suffix()));
+        Reflection.invoke(setColor, serverTeam, chatFormatting.get(team.color().toString().toUpperCase(Locale.ROOT)));
+        ((Collection<String>) Reflection.invoke(getPlayers, serverTeam)).add(team.entry());
+        return serverTeam;
+    }
+}
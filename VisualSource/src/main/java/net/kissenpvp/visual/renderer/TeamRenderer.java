@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.renderer;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Strategy sending the tab list teams to the clients.
+ *
+ * <p>The {@code TeamRenderer} interface receives the differences computed by the {@link KissenTabRender} and is
+ * responsible for getting them to the clients. The {@link ScoreboardTeamRenderer} uses the Bukkit scoreboard API,
+ * while the {@link PacketTeamRenderer} writes team packets directly to the connections of the players.</p>
+ *
+ * @see KissenTabRender
+ * @see TabTeam
+ */
+public interface TeamRenderer {
+
+    /**
+     * Sends the difference between two versions of a player's team to all viewers.
+     *
+     * @param player   the {@link Player} the team belongs to
+     * @param previous the {@link TabTeam} sent last, or {@code null} if none was sent so far
+     * @param current  the {@link TabTeam} to be sent
+     * @throws NullPointerException if either the player or current is `null`
+     */
+    void apply(@NotNull Player player, @Nullable TabTeam previous, @NotNull TabTeam current);
+
+    /**
+     * Sends the specified team changes to all viewers.
+     *
+     * <p>Renderers which are able to batch their output should override this method, so the viewers receive all
+     * changes at once.</p>
+     *
+     * @param changes the {@link Change}s to be sent
+     * @throws NullPointerException if the list is `null`
+     * @see #apply(Player, TabTeam, TabTeam)
+     */
+    default void apply(@NotNull List<Change> changes) {
+        changes.forEach(change -> apply(change.player(), change.previous(), change.current()));
+    }
+
+    /**
+     * Removes the specified team from all viewers.
+     *
+     * @param team the {@link TabTeam} to be removed
+     * @throws NullPointerException if the team is `null`
+     */
+    void remove(@NotNull TabTeam team);
+
+    /**
+     * Makes sure the specified viewer receives all teams.
+     *
+     * <p>When the viewer already received the teams, nothing is sent again. Otherwise, all teams are sent once.</p>
+     *
+     * @param viewer the {@link Player} to show the teams to
+     * @param teams  all {@link TabTeam}s currently known
+     * @throws NullPointerException if either parameter is `null`
+     */
+    void show(@NotNull Player viewer, @NotNull Collection<TabTeam> teams);
+
+    /**
+     * Stops sending teams to the specified viewer.
+     *
+     * @param viewer the {@link Player} who no longer views the teams
+     * @throws NullPointerException if the viewer is `null`
+     */
+    void hide(@NotNull Player viewer);
+
+    /**
+     * Returns the amount of teams currently registered by this renderer.
+     *
+     * <p>This value should not exceed the amount of online players. A higher value indicates that teams of players
+     * who left have not been removed.</p>
+     *
+     * @return the amount of live teams
+     */
+    int getTeamCount();
+
+    /**
+     * Difference between two versions of a player's team.
+     *
+     * @param player   the {@link Player} the team belongs to
+     * @param previous the {@link TabTeam} sent last, or {@code null} if none was sent so far
+     * @param current  the {@link TabTeam} to be sent
+     */
+    record Change(@NotNull Player player, @Nullable TabTeam previous, @NotNull TabTeam current) { }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.theme;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.kissenpvp.visual.api.theme.SentinelRole;
+import net.kissenpvp.visual.api.theme.ThemeProvider;
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Precomputed table replacing the sentinel colors of the {@link ThemeProvider} by the colors of a theme.
+ *
+ * <p>The {@code ColorRemapTable} class resolves the {@link SentinelRole} of a color through the static registry of
+ * the {@link ThemeProvider} and holds the theme color of every role, indexed by its ordinal. Looking up a color
+ * therefore neither allocates nor boxes.</p>
+ *
+ * <p>A table is immutable. Themes keep their table until one of their colors changes, see
+ * {@link #matches(TextColor, TextColor, TextColor, TextColor, TextColor)}.</p>
+ *
+ * @see DefaultTheme
+ * @see ThemeProvider#roleOf(int)
+ */
+@Getter
+final class ColorRemapTable {
+
+    private final TextColor primaryColor, secondaryColor, generalColor, enabledColor, disabledColor;
+    @Getter(AccessLevel.NONE) private final TextColor[] colors;
+
+    /**
+     * Builds the table of the specified theme colors.
+     *
+     * @param primaryColor   the color replacing the primary sentinel
+     * @param secondaryColor the color replacing the secondary sentinel
+     * @param generalColor   the color replacing the general sentinel
+     * @param enabledColor   the color replacing the enabled sentinel
+     * @param disabledColor  the color replacing the disabled sentinel
+     * @throws NullPointerException if any of the colors are `null`
+     */
+    ColorRemapTable(@NotNull TextColor primaryColor, @NotNull TextColor secondaryColor, @NotNull TextColor generalColor, @NotNull TextColor enabledColor, @NotNull TextColor disabledColor) {
+        this.primaryColor = primaryColor;
+        this.secondaryColor = secondaryColor;
+        this.generalColor = generalColor;
+        this.enabledColor = enabledColor;
+        this.disabledColor = disabledColor;
+
+        this.colors = new TextColor[SentinelRole.values().length];
+        colors[SentinelRole.PRIMARY.ordinal()] = primaryColor;
+        colors[SentinelRole.SECONDARY.ordinal()] = secondaryColor;
+        colors[SentinelRole.GENERAL.ordinal()] = generalColor;
+        colors[SentinelRole.ENABLED.ordinal()] = enabledColor;
+        colors[SentinelRole.DISABLED.ordinal()] = disabledColor;
+    }
+
+    /**
+     * Replaces the specified color by the matching theme color if it is a sentinel color.
+     *
+     * @param color the color to remap
+     * @return the theme color if the color is a sentinel color, otherwise the color itself
+     * @throws NullPointerException if the color is `null`
+     */
+    @NotNull TextColor remap(@NotNull TextColor color) {
+        SentinelRole role = ThemeProvider.roleOf(color.value());
+        return role == null ? color:colors[role.ordinal()];
+    }
+
+    /**
+     * Checks whether this table was built from the specified colors.
+     *
+     * @return {@code true} if all colors are equal, {@code false} if the table has to be rebuilt
+     */
+    boolean matches(@NotNull TextColor primaryColor, @NotNull TextColor secondaryColor, @NotNull TextColor generalColor, @NotNull TextColor enabledColor, @NotNull TextColor disabledColor) {
+        return this.primaryColor.equals(primaryColor) && this.secondaryColor.equals(secondaryColor) && this.generalColor.equals(generalColor) && this.enabledColor.equals(enabledColor) && this.disabledColor.equals(disabledColor);
+    }
+}
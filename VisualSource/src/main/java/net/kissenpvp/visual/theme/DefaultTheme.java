@@ -21,21 +21,20 @@ package net.kissenpvp.visual.theme;
 import lombok.Getter;
 import lombok.Setter;
 import net.kissenpvp.visual.api.theme.Theme;
-import net.kissenpvp.visual.api.theme.ThemeProvider;
 import net.kyori.adventure.text.*;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
-import java.util.function.Function;
+import java.util.Arrays;
 
 public class DefaultTheme implements Theme {
 
     @Getter @Setter
     private static NamedTextColor defaultPrimaryColor, defaultSecondaryColor, defaultGeneralColor, defaultEnabledColor, defaultDisabledColor;
 
+    private volatile ColorRemapTable remapTable;
+
 
     @Override
     public @NotNull TextColor getPrimaryColor() {
@@ -77,105 +76,67 @@ public class DefaultTheme implements Theme {
     }
 
     /**
-     * Converts a Component by replacing its color with a personalized color based on the current color value.
-     * This method retrieves the personalized color by querying the ColorProviderImplementation.
+     * Styles the provided component the same way an argument of a translatable component is styled.
      *
-     * @param component the Component to convert.
-     * @return the converted Component with the personalized color.
+     * <p>Arguments fall back to the highlight color of this theme instead of the general color. This allows callers
+     * to pre-style arguments and plug them into a translatable component without styling the whole tree again.</p>
+     *
+     * @param component the component to style.
+     * @return a new Component with the replaced colors.
      * @throws NullPointerException if the component is null.
      */
-    private @NotNull Component transformComponent(@NotNull Component component) {
-        return transformComponent(component, getGeneralColor());
+    public @NotNull Component styleArgument(@NotNull Component component) {
+        return transformComponent(component, highlightColor());
     }
 
-
-    private @NotNull Component transformComponent(@NotNull ComponentLike component, @NotNull TextColor fallBack) {
-        return Component.empty().append(component).toBuilder().mapChildrenDeep(buildableComponent -> transformSpecifiedComponent(buildableComponent, fallBack)).asComponent();
+    /**
+     * Returns the color used for arguments of translatable components.
+     *
+     * @return the highlight color of this theme.
+     */
+    public @NotNull TextColor getHighlightColor() {
+        return highlightColor();
     }
 
-
     /**
-     * Transforms a specified {@link BuildableComponent} by replacing its color with a personalized color based on
-     * the current color value.
+     * Converts a Component by replacing its color with a personalized color based on the current color value.
+     * This method retrieves the personalized color by querying the ColorProviderImplementation.
      *
-     * @param buildableComponent the {@link BuildableComponent} to transform.
-     * @return the transformed {@link BuildableComponent} with the personalized color.
-     * @throws NullPointerException if the buildableComponent is null.
+     * @param component the Component to convert.
+     * @return the converted Component with the personalized color.
+     * @throws NullPointerException if the component is null.
      */
-    private @NotNull BuildableComponent<?, ?> transformSpecifiedComponent(@NotNull BuildableComponent<?, ?> buildableComponent, @NotNull TextColor fallBack) {
-        if (buildableComponent instanceof TranslatableComponent translatableComponent) {
-
-            return transformTranslatableComponent(translatableComponent, fallBack);
-        }
-
-        buildableComponent = legacyColorCodeResolver(buildableComponent);
-        TextColor textColor = buildableComponent.color();
-        if (textColor!=null) {
-            return (BuildableComponent<?, ?>) buildableComponent.color(getPersonalColorByCode(textColor.value()));
-        }
-
-        return (BuildableComponent<?, ?>) buildableComponent.color(fallBack);
+    private @NotNull Component transformComponent(@NotNull Component component) {
+        return transformComponent(component, getGeneralColor());
     }
 
-    @NotNull
-    private TranslatableComponent transformTranslatableComponent(@NotNull TranslatableComponent translatableComponent, @NotNull TextColor fallBack) {
-        Function<TranslationArgument, Component> argumentMapper = argument -> transformComponent(argument, highlightColor());
-        List<Component> transformedArgs = translatableComponent.arguments().stream().map(argumentMapper).toList();
 
-        TextColor textColor = Objects.requireNonNullElse(translatableComponent.color(), fallBack);
-        if (!textColor.equals(fallBack)) {
-            textColor = getPersonalColorByCode(textColor.value());
-        }
-        return translatableComponent.color(textColor).arguments(transformedArgs.toArray(new Component[0]));
+    private @NotNull Component transformComponent(@NotNull ComponentLike component, @NotNull TextColor fallBack) {
+        return new ThemeTransformer(this).transform(component, fallBack);
     }
 
-    @NotNull
-    private BuildableComponent<?, ?> legacyColorCodeResolver(@NotNull BuildableComponent<?, ?> buildableComponent) {
-        Map<String, TextColor> replacements = new HashMap<>();
-        String legacy = LegacyComponentSerializer.legacyAmpersand().serialize(buildableComponent);
-        for (String textPassage : legacy.split("§")) {
-            if (textPassage.length() > 1) {
-                if (legacy.startsWith(textPassage) && !textPassage.startsWith("§")) {
-                    continue;
-                }
-                switch (textPassage.substring(0, 1).toLowerCase()) {
-                    case "p" -> replacements.put(textPassage.substring(1), getPrimaryColor());
-                    case "s" -> replacements.put(textPassage.substring(1), getSecondaryColor());
-                    case "t" -> replacements.put(textPassage.substring(1), getGeneralColor());
-                    case "+" -> replacements.put(textPassage.substring(1), getEnabledColor());
-                    case "-" -> replacements.put(textPassage.substring(1), getDisabledColor());
-                }
-            }
-        }
-
-        for (Map.Entry<String, TextColor> stringTextColorEntry : replacements.entrySet()) {
-            buildableComponent = (BuildableComponent<?, ?>) buildableComponent.replaceText(config -> {
-                config.matchLiteral(stringTextColorEntry.getKey());
-                config.replacement(Component.text(stringTextColorEntry.getKey()).color(stringTextColorEntry.getValue()));
-            });
-        }
-
-        return buildableComponent;
+    @org.jetbrains.annotations.Contract(pure = true)
+    private @org.jetbrains.annotations.Nullable TextColor resolveColorValue(int color) {
+        return null;
     }
 
     /**
-     * Retrieves a personalized TextColor based on the given color value.
-     * This method queries the ColorProviderImplementation to obtain the personalized TextColor.
+     * Returns the table replacing the sentinel colors by the colors of this theme.
      *
-     * @param value the color value to retrieve the personalized TextColor for.
-     * @return the personalized TextColor.
-     * @throws NullPointerException if the ColorProviderImplementation is null.
+     * <p>The table is kept until one of the colors of this theme changes.</p>
+     *
+     * @return the {@link ColorRemapTable} of the current colors
      */
-    private @NotNull TextColor getPersonalColorByCode(int value) {
-        Map<TextColor, TextColor> colorMap = Map.of(ThemeProvider.primary(), getPrimaryColor(), ThemeProvider.secondary(), getSecondaryColor(), ThemeProvider.general(), getGeneralColor(), ThemeProvider.enabled(), getEnabledColor(), ThemeProvider.disabled(), getDisabledColor());
-        TextColor color = TextColor.color(value);
-
-        return Optional.ofNullable(colorMap.get(color)).orElse(color);
-    }
-
-    @org.jetbrains.annotations.Contract(pure = true)
-    private @org.jetbrains.annotations.Nullable TextColor resolveColorValue(int color) {
-        return null;
+    @NotNull ColorRemapTable remapTable() {
+        TextColor primary = getPrimaryColor(), secondary = getSecondaryColor(), general = getGeneralColor();
+        TextColor enabled = getEnabledColor(), disabled = getDisabledColor();
+
+        ColorRemapTable table = remapTable;
+        if (table == null || !table.matches(primary, secondary, general, enabled, disabled)) {
+            table = new ColorRemapTable(primary, secondary, general, enabled, disabled);
+            remapTable = table;
+        }
+        return table;
     }
 
     protected @NotNull TextColor highlightColor() {
@@ -19,58 +19,115 @@
 package net.kissenpvp.visual.theme;
 
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.kissenpvp.visual.InternalVisual;
 import net.kissenpvp.visual.api.theme.playersetting.*;
 import net.kissenpvp.visual.theme.playersettings.*;
 import net.kyori.adventure.text.format.TextColor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
-
-@AllArgsConstructor
+/**
+ * Theme of an online player, based on the color settings of the player.
+ *
+ * <p>The colors are read from the player settings only once and kept as an interned {@link ThemeSnapshot} until one
+ * of the color settings or the highlight setting changes, see {@link #invalidate(OfflinePlayer)}.</p>
+ *
+ * @see ThemeSnapshot
+ */
+@RequiredArgsConstructor
 @Getter(AccessLevel.PROTECTED)
 public class PlayerTheme extends DefaultTheme {
 
     private final Player player;
+    private volatile ThemeSnapshot snapshot;
+
+    /**
+     * Discards the cached snapshot of the specified player, so it is rebuilt from the settings on the next access.
+     *
+     * <p>Offline players are skipped, as their theme is dropped together with the user storage anyway.</p>
+     *
+     * @param player the player whose settings changed
+     * @throws NullPointerException if the player is `null`
+     */
+    public static void invalidate(@NotNull OfflinePlayer player) {
+        Player online = player.getPlayer();
+        if (online != null && InternalVisual.getPlugin(InternalVisual.class).getEntity(online).getTheme() instanceof PlayerTheme playerTheme) {
+            playerTheme.invalidate();
+        }
+    }
+
+    /**
+     * Discards the cached snapshot of this theme, so it is rebuilt from the settings on the next access.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Retrieves the snapshot of the current colors of this theme.
+     *
+     * @return the interned {@link ThemeSnapshot} of the player
+     */
+    public @NotNull ThemeSnapshot snapshot() {
+        ThemeSnapshot current = snapshot;
+        if (current == null) {
+            current = capture();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private @NotNull ThemeSnapshot capture() {
+        TextColor primary = getPlayer().getSetting(PrimaryUserColor.class).getValue();
+        TextColor secondary = getPlayer().getSetting(SecondaryUserColor.class).getValue();
+        TextColor general = getPlayer().getSetting(GeneralUserColor.class).getValue();
+        TextColor enabled = getPlayer().getSetting(EnabledUserColor.class).getValue();
+        TextColor disabled = getPlayer().getSetting(KissenDisabledUserColor.class).getValue();
+        boolean highlight = getPlayer().getSetting(HighlightVariables.class).getValue();
+        return ThemeSnapshot.of(primary, secondary, general, enabled, disabled, highlight);
+    }
 
     @Override
     public @NotNull TextColor getPrimaryColor() {
-        return getPlayer().getSetting(PrimaryUserColor.class).getValue();
+        return snapshot().getPrimaryColor();
     }
 
 
     @Override
     public @NotNull TextColor getSecondaryColor() {
-        return getPlayer().getSetting(SecondaryUserColor.class).getValue();
+        return snapshot().getSecondaryColor();
     }
 
     @Override
     public @NotNull TextColor getGeneralColor() {
-        return getPlayer().getSetting(GeneralUserColor.class).getValue();
+        return snapshot().getGeneralColor();
     }
 
     @Override
     public @NotNull TextColor getEnabledColor() {
-        return getPlayer().getSetting(EnabledUserColor.class).getValue();
+        return snapshot().getEnabledColor();
     }
 
     @Override
     public @NotNull TextColor getDisabledColor() {
-        return getPlayer().getSetting(KissenDisabledUserColor.class).getValue();
+        return snapshot().getDisabledColor();
     }
 
     @Override
     protected @NotNull TextColor highlightColor() {
-        if (getPlayer().getSetting(HighlightVariables.class).getValue()) {
-            return super.highlightColor();
-        }
-        return getGeneralColor();
+        return snapshot().highlightColor();
+    }
+
+    @Override
+    @NotNull ColorRemapTable remapTable() {
+        return snapshot().remapTable();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getPrimaryColor(), this.getSecondaryColor(), getGeneralColor(), getDisabledColor(), getEnabledColor());
+        return snapshot().hashCode();
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.theme;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.kissenpvp.visual.api.theme.Theme;
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, interned copy of the colors of a theme.
+ *
+ * <p>The {@code ThemeSnapshot} class holds the five colors of a theme and whether variables are highlighted. Unlike
+ * the {@link PlayerTheme}, it does not access any player settings, which makes it safe to style components off the
+ * main thread.</p>
+ *
+ * <p>Snapshots are interned in a pool, so all themes with the same colors share the same instance. As most players
+ * use the default colors, downstream caches keyed by a snapshot are shared between them and can compare their keys
+ * by identity. The pool only references its snapshots weakly, so snapshots no longer used by any player or cache are
+ * collected and removed from the pool.</p>
+ *
+ * @see #of(Theme)
+ */
+@Getter
+public final class ThemeSnapshot extends DefaultTheme {
+
+    private static final Map<Colors, PoolReference> POOL = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<ThemeSnapshot> COLLECTED = new ReferenceQueue<>();
+
+    private final TextColor primaryColor, secondaryColor, generalColor, enabledColor, disabledColor;
+    private final boolean highlightVariables;
+    @Getter(AccessLevel.NONE) private final int hashCode;
+
+    private ThemeSnapshot(@NotNull Colors colors) {
+        this.primaryColor = colors.primaryColor();
+        this.secondaryColor = colors.secondaryColor();
+        this.generalColor = colors.generalColor();
+        this.enabledColor = colors.enabledColor();
+        this.disabledColor = colors.disabledColor();
+        this.highlightVariables = colors.highlightVariables();
+        this.hashCode = colors.hashCode();
+    }
+
+    /**
+     * Retrieves the interned snapshot of the specified colors.
+     *
+     * @param primaryColor       the primary color
+     * @param secondaryColor     the secondary color
+     * @param generalColor       the general color
+     * @param enabledColor       the enabled color
+     * @param disabledColor      the disabled color
+     * @param highlightVariables whether arguments of translatable components are highlighted in the primary color
+     * @return the {@link ThemeSnapshot} shared by all themes with these colors
+     * @throws NullPointerException if any of the colors are `null`
+     */
+    public static @NotNull ThemeSnapshot of(@NotNull TextColor primaryColor, @NotNull TextColor secondaryColor, @NotNull TextColor generalColor, @NotNull TextColor enabledColor, @NotNull TextColor disabledColor, boolean highlightVariables) {
+        expungeCollected();
+
+        Colors colors = new Colors(primaryColor, secondaryColor, generalColor, enabledColor, disabledColor, highlightVariables);
+        while (true) {
+            PoolReference reference = POOL.get(colors);
+            ThemeSnapshot interned = reference == null ? null:reference.get();
+            if (interned != null) {
+                return interned;
+            }
+
+            ThemeSnapshot snapshot = new ThemeSnapshot(colors);
+            PoolReference created = new PoolReference(snapshot, colors);
+            if (reference == null ? POOL.putIfAbsent(colors, created) == null:POOL.replace(colors, reference, created)) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of snapshots currently interned.
+     *
+     * @return the size of the pool, including snapshots collected but not removed yet
+     */
+    public static int getPoolSize() {
+        expungeCollected();
+        return POOL.size();
+    }
+
+    /**
+     * Removes the pool entries of all snapshots collected since the last call.
+     */
+    private static void expungeCollected() {
+        for (Object reference = COLLECTED.poll(); reference != null; reference = COLLECTED.poll()) {
+            PoolReference collected = (PoolReference) reference;
+            POOL.remove(collected.colors, collected);
+        }
+    }
+
+    /**
+     * Retrieves the snapshot of the current colors of the specified theme.
+     *
+     * @param theme the {@link Theme} to copy the colors from
+     * @return the {@link ThemeSnapshot} of the current colors of the theme
+     * @throws NullPointerException if the theme is `null`
+     */
+    public static @NotNull ThemeSnapshot of(@NotNull Theme theme) {
+        if (theme instanceof ThemeSnapshot themeSnapshot) {
+            return themeSnapshot;
+        } else if (theme instanceof PlayerTheme playerTheme) {
+            return playerTheme.snapshot();
+        }
+
+        boolean highlight = !(theme instanceof DefaultTheme defaultTheme) || defaultTheme.getHighlightColor().equals(theme.getPrimaryColor());
+        return of(theme.getPrimaryColor(), theme.getSecondaryColor(), theme.getGeneralColor(), theme.getEnabledColor(), theme.getDisabledColor(), highlight);
+    }
+
+    @Override
+    protected @NotNull TextColor highlightColor() {
+        return highlightVariables ? primaryColor:generalColor;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof ThemeSnapshot other) || hashCode != other.hashCode) {
+            return false;
+        }
+        return highlightVariables == other.highlightVariables && primaryColor.equals(other.primaryColor) && secondaryColor.equals(other.secondaryColor) && generalColor.equals(other.generalColor) && enabledColor.equals(other.enabledColor) && disabledColor.equals(other.disabledColor);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * The values identifying a snapshot in the pool.
+     */
+    private record Colors(@NotNull TextColor primaryColor, @NotNull TextColor secondaryColor, @NotNull TextColor generalColor, @NotNull TextColor enabledColor, @NotNull TextColor disabledColor, boolean highlightVariables) { }
+
+    /**
+     * Weak reference to an interned snapshot, remembering its key so it can be removed once collected.
+     */
+    private static final class PoolReference extends WeakReference<ThemeSnapshot> {
+
+        private final Colors colors;
+
+        private PoolReference(@NotNull ThemeSnapshot snapshot, @NotNull Colors colors) {
+            super(snapshot, COLLECTED);
+            this.colors = colors;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.theme;
+
+import net.kissenpvp.visual.api.theme.ThemeProvider;
+import net.kyori.adventure.text.*;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Recolors a component tree according to the colors of a theme in a single depth-first pass.
+ *
+ * <p>The {@code ThemeTransformer} class captures the colors of a {@link DefaultTheme} once and then walks the tree a
+ * single time. Every node receives an explicit color: sentinel colors of the {@link ThemeProvider} are replaced by the
+ * matching theme color, uncolored nodes receive the fallback color and arguments of translatable components fall back
+ * to the highlight color.</p>
+ *
+ * <p>Text following a {@code §p}, {@code §s}, {@code §t}, {@code §+} or {@code §-} marker is colored in the primary,
+ * secondary, general, enabled or disabled color. The markers are resolved during the same pass, without serializing
+ * the nodes to legacy text. The result looks the same as the one of the legacy resolver this class replaces,
+ * including its quirks:</p>
+ * <ul>
+ *     <li>a marked passage colors every literal occurrence of the passage within the subtree it was resolved for,
+ *     including the hover texts of that subtree,</li>
+ *     <li>the text between the occurrences falls back to the fallback color,</li>
+ *     <li>a passage running into the text of another component is not resolved.</li>
+ * </ul>
+ *
+ * <p>Passages whose texts overlap each other are applied in the order of their nodes, outer nodes first, instead of
+ * the hash order of the legacy resolver. Only a read-only scan for markers precedes the pass, and it is skipped
+ * entirely if the tree contains none.</p>
+ *
+ * @see DefaultTheme#style(Component...)
+ */
+final class ThemeTransformer {
+
+    private static final char MARKER = '§';
+
+    private final ColorRemapTable remapTable;
+    private final TextColor highlight;
+
+    /**
+     * Captures the colors of the specified theme.
+     *
+     * @param theme the {@link DefaultTheme} providing the colors
+     * @throws NullPointerException if the theme is `null`
+     */
+    ThemeTransformer(@NotNull DefaultTheme theme) {
+        this.remapTable = theme.remapTable();
+        this.highlight = theme.highlightColor();
+    }
+
+    /**
+     * Transforms the specified component.
+     *
+     * <p>Like the legacy resolver, the transformed component is wrapped into an empty component.</p>
+     *
+     * @param component the component to transform
+     * @param fallBack  the color of nodes without a color
+     * @return the transformed {@link Component}
+     * @throws NullPointerException if any of the parameters are `null`
+     */
+    @NotNull Component transform(@NotNull ComponentLike component, @NotNull TextColor fallBack) {
+        return transform(component.asComponent(), fallBack, List.of());
+    }
+
+    /**
+     * Transforms the specified root, applying the inherited replacements in addition to the ones of its own markers.
+     *
+     * @param root      the root of the tree
+     * @param fallBack  the color of nodes without a color
+     * @param inherited the replacements resolved by enclosing trees
+     * @return the transformed {@link Component}
+     */
+    private @NotNull Component transform(@NotNull Component root, @NotNull TextColor fallBack, @NotNull List<Replacement> inherited) {
+        if (root == Component.empty()) {
+            return root; // the legacy resolver never appended the empty component to its wrapper
+        }
+
+        Map<Component, Map<String, TextColor>> scopes = Map.of();
+        if (containsMarker(root)) {
+            scopes = new IdentityHashMap<>();
+            scan(root, new ArrayList<>(), scopes);
+        }
+        return Component.empty().append(transformNode(root, fallBack, inherited, scopes));
+    }
+
+    /**
+     * Transforms the specified node and its subtree.
+     *
+     * @param component the node to transform
+     * @param fallBack  the color of nodes without a color
+     * @param inherited the replacements resolved by the ancestors of the node
+     * @param scopes    the replacements introduced by the nodes of the tree
+     * @return the transformed {@link Component}
+     */
+    private @NotNull Component transformNode(@NotNull Component component, @NotNull TextColor fallBack, @NotNull List<Replacement> inherited, @NotNull Map<Component, Map<String, TextColor>> scopes) {
+        List<Replacement> active = inherited;
+        Map<String, TextColor> introduced = scopes.get(component);
+        if (introduced != null) {
+            active = new ArrayList<>(inherited);
+            for (Map.Entry<String, TextColor> entry : introduced.entrySet()) {
+                active.add(new Replacement(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<Component> children = new ArrayList<>(component.children().size());
+        for (Component child : component.children()) {
+            children.add(child instanceof BuildableComponent<?, ?> ? transformNode(child, fallBack, active, scopes):child);
+        }
+
+        Component transformed;
+        if (component instanceof TranslatableComponent translatableComponent) {
+            List<Component> arguments = new ArrayList<>(translatableComponent.arguments().size());
+            for (ComponentLike argument : translatableComponent.arguments()) {
+                arguments.add(transform(argument.asComponent(), highlight, active));
+            }
+            transformed = translatableComponent.color(translatableColor(translatableComponent, fallBack)).arguments(arguments).children(children);
+        } else if (component instanceof TextComponent textComponent && !active.isEmpty()) {
+            transformed = replace(textComponent, color(component, fallBack), fallBack, active, children);
+        } else {
+            transformed = component.color(color(component, fallBack)).children(children);
+        }
+        return active.isEmpty() ? transformed:replaceHover(transformed, active);
+    }
+
+    /**
+     * Resolves the color of the specified node, replacing sentinel colors by the matching theme color.
+     *
+     * @param component the node
+     * @param fallBack  the color used if the node has no color
+     * @return the resolved {@link TextColor}
+     */
+    private @NotNull TextColor color(@NotNull Component component, @NotNull TextColor fallBack) {
+        TextColor color = component.color();
+        return color == null ? fallBack:remapTable.remap(color);
+    }
+
+    /**
+     * Resolves the color of a translatable component, which is only remapped if it differs from the fallback color.
+     *
+     * <p>The lookup uses the {@link ColorRemapTable} of the theme and does not allocate.</p>
+     *
+     * @param translatableComponent the translatable component
+     * @param fallBack              the color used if the component has no color
+     * @return the resolved {@link TextColor}
+     */
+    private @NotNull TextColor translatableColor(@NotNull TranslatableComponent translatableComponent, @NotNull TextColor fallBack) {
+        TextColor color = translatableComponent.color();
+        return color == null || color.equals(fallBack) ? fallBack:remapTable.remap(color);
+    }
+
+    /**
+     * Resolves the theme color of the specified marker character.
+     *
+     * @param code the character following the marker
+     * @return the {@link TextColor} of the marker, or {@code null} if the character is no marker
+     */
+    private @Nullable TextColor markerColor(char code) {
+        return switch (Character.toLowerCase(code)) {
+            case 'p' -> remapTable.getPrimaryColor();
+            case 's' -> remapTable.getSecondaryColor();
+            case 't' -> remapTable.getGeneralColor();
+            case '+' -> remapTable.getEnabledColor();
+            case '-' -> remapTable.getDisabledColor();
+            default -> null;
+        };
+    }
+
+    /**
+     * Colors all occurrences of the active replacements within the content of the specified text component.
+     *
+     * <p>The content up to the first occurrence stays part of the node. The occurrences follow as children in their
+     * replacement color, the text between them as children in the fallback color, and finally the original
+     * children.</p>
+     *
+     * @param textComponent the text component
+     * @param color         the resolved color of the node
+     * @param fallBack      the color of the text between the occurrences
+     * @param active        the replacements to apply, outer ones first
+     * @param children      the already transformed children of the node
+     * @return the transformed {@link Component}
+     */
+    private @NotNull Component replace(@NotNull TextComponent textComponent, @NotNull TextColor color, @NotNull TextColor fallBack, @NotNull List<Replacement> active, @NotNull List<Component> children) {
+        String content = textComponent.content();
+        List<Range> ranges = ranges(content, active);
+        if (ranges.isEmpty()) {
+            return textComponent.color(color).children(children);
+        }
+
+        Range first = ranges.getFirst();
+        if (ranges.size() == 1 && first.start() == 0 && first.end() == content.length()) {
+            return textComponent.color(first.color()).children(children);
+        }
+
+        List<Component> parts = new ArrayList<>(ranges.size() * 2 + children.size());
+        int cursor = first.start();
+        for (Range range : ranges) {
+            if (range.start() > cursor) {
+                parts.add(gap(content.substring(cursor, range.start()), fallBack));
+            }
+            parts.add(Component.text(content.substring(range.start(), range.end()), range.color()));
+            cursor = range.end();
+        }
+        if (cursor < content.length()) {
+            parts.add(gap(content.substring(cursor), fallBack));
+        }
+        parts.addAll(children);
+
+        return textComponent.content(content.substring(0, first.start())).color(color).children(parts);
+    }
+
+    /**
+     * Finds the non-overlapping occurrences of the replacements, earlier replacements taking precedence.
+     *
+     * @param content the content to search in
+     * @param active  the replacements to find
+     * @return the occurrences ordered by their position
+     */
+    private static @NotNull List<Range> ranges(@NotNull String content, @NotNull List<Replacement> active) {
+        List<Range> ranges = new ArrayList<>();
+        for (Replacement replacement : active) {
+            String key = replacement.key();
+            int index = content.indexOf(key);
+            while (index != -1) {
+                int end = index + key.length();
+                if (isFree(ranges, index, end)) {
+                    ranges.add(new Range(index, end, replacement.color()));
+                    index = content.indexOf(key, end);
+                } else {
+                    index = content.indexOf(key, index + 1);
+                }
+            }
+        }
+        ranges.sort(Comparator.comparingInt(Range::start));
+        return ranges;
+    }
+
+    private static boolean isFree(@NotNull List<Range> ranges, int start, int end) {
+        for (Range range : ranges) {
+            if (start < range.end() && range.start() < end) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the child holding the text between two occurrences.
+     *
+     * <p>Being a component on its own, the text resolves its markers once more, as it did in the legacy resolver. This
+     * matters for a passage at the end of the text, which was not resolved before as it ran into the text of the
+     * following component.</p>
+     *
+     * @param content  the text between the occurrences
+     * @param fallBack the color of the text
+     * @return the created {@link Component}
+     */
+    private @NotNull Component gap(@NotNull String content, @NotNull TextColor fallBack) {
+        TextComponent gap = Component.text(content);
+        if (content.indexOf(MARKER) == -1) {
+            return gap.color(fallBack);
+        }
+
+        List<Replacement> replacements = passages(content);
+        return replacements.isEmpty() ? gap.color(fallBack):replace(gap, fallBack, fallBack, replacements, List.of());
+    }
+
+    /**
+     * Collects the marked passages of a text standing on its own.
+     *
+     * <p>A passage the text starts with is skipped, and a later passage with the same text replaces the color of an
+     * earlier one.</p>
+     *
+     * @param content the text
+     * @return the replacements of the marked passages
+     */
+    private @NotNull List<Replacement> passages(@NotNull String content) {
+        Map<String, TextColor> passages = new LinkedHashMap<>();
+        for (String passage : content.split(String.valueOf(MARKER))) {
+            TextColor color = passage.length() > 1 && !content.startsWith(passage) ? markerColor(passage.charAt(0)):null;
+            if (color != null) {
+                passages.put(passage.substring(1), color);
+            }
+        }
+
+        List<Replacement> replacements = new ArrayList<>(passages.size());
+        passages.forEach((key, color) -> replacements.add(new Replacement(key, color)));
+        return replacements;
+    }
+
+    /**
+     * Colors the occurrences of the active replacements within the hover text of the specified node.
+     *
+     * <p>The legacy resolver colored these occurrences as well, but left the hover text alone otherwise. As hover
+     * texts are rare, the occurrences are replaced within the hover text directly.</p>
+     *
+     * @param component the transformed node
+     * @param active    the replacements to apply, outer ones first
+     * @return the node with the replaced hover text
+     */
+    private static @NotNull Component replaceHover(@NotNull Component component, @NotNull List<Replacement> active) {
+        HoverEvent<?> hoverEvent = component.hoverEvent();
+        if (hoverEvent == null || hoverEvent.action() != HoverEvent.Action.SHOW_TEXT) {
+            return component;
+        }
+
+        Component text = (Component) hoverEvent.value();
+        for (Replacement replacement : active) {
+            text = text.replaceText(config -> config.matchLiteral(replacement.key()).replacement(Component.text(replacement.key(), replacement.color())));
+        }
+        return component.hoverEvent(HoverEvent.showText(text));
+    }
+
+    /**
+     * Collects the marked passages of the tree and the node whose subtree each of them applies to.
+     *
+     * <p>A passage ending at the next marker applies to the highest node whose serialized text does not start with
+     * it. A passage ending with the text of its component only applies to the nodes whose serialized text ends with
+     * it as well. Translatable components never resolve passages, their arguments are scanned on their own.</p>
+     *
+     * @param node   the current node
+     * @param path   the path from the root to the current node
+     * @param scopes the passages mapped to the node they apply to
+     */
+    private void scan(@NotNull Component node, @NotNull List<Component> path, @NotNull Map<Component, Map<String, TextColor>> scopes) {
+        path.add(node);
+        if (node instanceof TextComponent textComponent) {
+            String content = textComponent.content();
+            for (int marker = content.indexOf(MARKER); marker != -1 && marker + 1 < content.length(); ) {
+                int next = content.indexOf(MARKER, marker + 1);
+                String passage = next == -1 ? content.substring(marker + 1):content.substring(marker + 1, next);
+                TextColor color = passage.length() > 1 ? markerColor(passage.charAt(0)):null;
+                if (color != null) {
+                    Component scope = scope(path, passage, next == -1);
+                    if (scope != null) {
+                        scopes.computeIfAbsent(scope, (ignored) -> new LinkedHashMap<>()).put(passage.substring(1), color);
+                    }
+                }
+                marker = next;
+            }
+        }
+        node.children().forEach(child -> scan(child, path, scopes));
+        path.removeLast();
+    }
+
+    /**
+     * Determines the node a marked passage applies to.
+     *
+     * @param path    the path from the root to the node containing the passage
+     * @param passage the passage including the marker character
+     * @param open    whether the passage ends with the text of its component
+     * @return the node whose subtree the passage applies to, or {@code null} if it does not apply at all
+     */
+    private static @Nullable Component scope(@NotNull List<Component> path, @NotNull String passage, boolean open) {
+        int highest = 0;
+        if (open) {
+            Component node = path.getLast();
+            if (node.children().stream().anyMatch(ThemeTransformer::isTextBearing)) {
+                return null;
+            }
+
+            highest = path.size() - 1;
+            while (highest > 0 && isLastTextBearing(path.get(highest - 1), path.get(highest))) {
+                highest--;
+            }
+        }
+
+        for (int level = highest; level < path.size(); level++) {
+            Component candidate = path.get(level);
+            if (!(candidate instanceof TranslatableComponent) && !startsWith(candidate, passage)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether no text-bearing child follows the specified child of the parent.
+     */
+    private static boolean isLastTextBearing(@NotNull Component parent, @NotNull Component child) {
+        List<Component> children = parent.children();
+        for (int i = children.size() - 1; i >= 0 && children.get(i) != child; i--) {
+            if (isTextBearing(children.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTextBearing(@NotNull Component component) {
+        if (!(component instanceof TextComponent textComponent) || !textComponent.content().isEmpty()) {
+            return true;
+        }
+        return component.children().stream().anyMatch(ThemeTransformer::isTextBearing);
+    }
+
+    /**
+     * Checks whether the legacy serialization of the specified node starts with the specified passage.
+     *
+     * <p>Formatted nodes serialize to a formatting code first, which never matches a passage starting with a marker
+     * character.</p>
+     */
+    private static boolean startsWith(@NotNull Component component, @NotNull String passage) {
+        StringBuilder builder = new StringBuilder(passage.length());
+        appendUnformatted(component, builder, passage.length());
+        return builder.toString().startsWith(passage);
+    }
+
+    private static boolean appendUnformatted(@NotNull Component component, @NotNull StringBuilder builder, int limit) {
+        if (builder.length() >= limit) {
+            return false;
+        }
+        if (!(component instanceof TextComponent textComponent) || isFormatted(component)) {
+            builder.append('&');
+            return false;
+        }
+
+        builder.append(textComponent.content());
+        for (Component child : component.children()) {
+            if (!appendUnformatted(child, builder, limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFormatted(@NotNull Component component) {
+        if (component.color() != null) {
+            return true;
+        }
+        return component.decorations().values().stream().anyMatch(state -> state == TextDecoration.State.TRUE);
+    }
+
+    /**
+     * Checks whether the text of any node of the tree contains a marker.
+     *
+     * @param component the root of the tree
+     * @return {@code true} if the tree has to be scanned for marked passages
+     */
+    private static boolean containsMarker(@NotNull Component component) {
+        if (component instanceof TextComponent textComponent && textComponent.content().indexOf(MARKER) != -1) {
+            return true;
+        }
+        return component.children().stream().anyMatch(ThemeTransformer::containsMarker);
+    }
+
+    /**
+     * Passage colored wherever it literally occurs.
+     *
+     * @param key   the text of the passage
+     * @param color the color of the passage
+     */
+    private record Replacement(@NotNull String key, @NotNull TextColor color) { }
+
+    /**
+     * Occurrence of a replacement within a content.
+     *
+     * @param start the index of the first character, inclusive
+     * @param end   the index of the last character, exclusive
+     * @param color the color of the occurrence
+     */
+    private record Range(int start, int end, @NotNull TextColor color) { }
+}
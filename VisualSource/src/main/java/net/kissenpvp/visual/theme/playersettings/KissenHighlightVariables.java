@@ -20,8 +20,10 @@ package net.kissenpvp.visual.theme.playersettings;
 
 import net.kissenpvp.core.api.user.playersettting.UserValue;
 import net.kissenpvp.visual.api.theme.playersetting.HighlightVariables;
+import net.kissenpvp.visual.theme.PlayerTheme;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class KissenHighlightVariables implements HighlightVariables
 {
@@ -49,4 +51,16 @@ public class KissenHighlightVariables implements HighlightVariables
     {
         return new UserValue[] {new UserValue<>(true), new UserValue<>(false)};
     }
+
+    @Override
+    public void setValue(@NotNull OfflinePlayer player, @Nullable Boolean value)
+    {
+        PlayerTheme.invalidate(player);
+    }
+
+    @Override
+    public void reset(@NotNull OfflinePlayer player)
+    {
+        PlayerTheme.invalidate(player);
+    }
 }
@@ -20,9 +20,11 @@ package net.kissenpvp.visual.theme.playersettings;
 
 import net.kissenpvp.core.api.user.playersettting.UserValue;
 import net.kissenpvp.pulvinar.api.user.playersetting.PlayerSetting;
+import net.kissenpvp.visual.theme.PlayerTheme;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class UserColorSetting implements PlayerSetting<NamedTextColor> {
     @Override
@@ -59,4 +61,14 @@ public abstract class UserColorSetting implements PlayerSetting<NamedTextColor>
                         new UserValue<>(NamedTextColor.WHITE),
                 };
     }
+
+    @Override
+    public void setValue(@NotNull OfflinePlayer player, @Nullable NamedTextColor value) {
+        PlayerTheme.invalidate(player);
+    }
+
+    @Override
+    public void reset(@NotNull OfflinePlayer player) {
+        PlayerTheme.invalidate(player);
+    }
 }
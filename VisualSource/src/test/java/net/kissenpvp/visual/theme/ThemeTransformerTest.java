@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2024 KissenPvP
+ *
+ * This program is licensed under the Apache License, Version 2.0.
+ *
+ * This software may be redistributed and/or modified under the terms
+ * of the Apache License as published by the Apache Software Foundation,
+ * either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the Apache
+ * License, Version 2.0 for the specific language governing permissions
+ * and limitations under the License.
+ *
+ * You should have received a copy of the Apache License, Version 2.0
+ * along with this program. If not, see <http://www.apache.org/licenses/LICENSE-2.0>.
+ */
+
+package net.kissenpvp.visual.theme;
+
+import net.kissenpvp.visual.api.theme.ThemeProvider;
+import net.kyori.adventure.text.*;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Golden test comparing the {@link ThemeTransformer} with the legacy resolver it replaces.
+ *
+ * <p>The {@link LegacyResolver} is a copy of the resolver {@link DefaultTheme} used before. Trees without markers must
+ * be transformed into equal components. For trees with markers, the legacy resolver splits the text in the hash order
+ * of the passages, so only the rendered output, every character with its effective style including the hover texts,
+ * is compared.</p>
+ */
+class ThemeTransformerTest {
+
+    private static final DefaultTheme THEME = new DefaultTheme() {
+
+        @Override
+        public @NotNull TextColor getPrimaryColor() {
+            return NamedTextColor.GOLD;
+        }
+
+        @Override
+        public @NotNull TextColor getSecondaryColor() {
+            return NamedTextColor.AQUA;
+        }
+
+        @Override
+        public @NotNull TextColor getGeneralColor() {
+            return NamedTextColor.GRAY;
+        }
+
+        @Override
+        public @NotNull TextColor getEnabledColor() {
+            return NamedTextColor.GREEN;
+        }
+
+        @Override
+        public @NotNull TextColor getDisabledColor() {
+            return NamedTextColor.RED;
+        }
+    };
+
+    @Test
+    void plainText() {
+        assertSameComponent(Component.text("Hello"));
+    }
+
+    @Test
+    void emptyComponent() {
+        assertSameComponent(Component.empty());
+    }
+
+    @Test
+    void sentinelColors() {
+        Component since = Component.text(" since ").append(Component.text("2024", ThemeProvider.secondary()));
+        Component rank = Component.text("Admin", NamedTextColor.DARK_RED).decorate(TextDecoration.BOLD);
+        assertSameComponent(Component.text("Rank ", ThemeProvider.primary()).append(rank).append(since));
+        assertSameComponent(Component.text("on", ThemeProvider.enabled()).append(Component.text("off", ThemeProvider.disabled())));
+        assertSameComponent(Component.text("hex", TextColor.color(0x123456)).append(Component.text("general", ThemeProvider.general())));
+    }
+
+    @Test
+    void events() {
+        Component hover = Component.text("Info", ThemeProvider.primary());
+        Component click = Component.text("Click", ThemeProvider.enabled()).hoverEvent(HoverEvent.showText(hover));
+        assertSameComponent(click.clickEvent(ClickEvent.runCommand("/help")).append(Component.text(" here")));
+    }
+
+    @Test
+    void translatable() {
+        Component give = Component.translatable("commands.give.success.single", Component.text("1"), Component.text("Diamond", ThemeProvider.secondary()), Component.text("Steve", NamedTextColor.WHITE));
+        assertSameComponent(give.color(ThemeProvider.general()));
+        assertSameComponent(Component.translatable("key", NamedTextColor.GRAY));
+        assertSameComponent(Component.translatable("key", NamedTextColor.DARK_GREEN, Component.empty()));
+
+        Component nested = Component.translatable("key", Component.text("x")).append(Component.text(" tail"));
+        assertSameComponent(Component.text("» ").append(nested));
+    }
+
+    @Test
+    void marker() {
+        assertSameOutput(Component.text("Hello §pWorld"));
+        assertSameOutput(Component.text("§sFoo bar Foo", NamedTextColor.DARK_PURPLE));
+        assertSameOutput(Component.text("§PName"));
+    }
+
+    @Test
+    void multipleMarkers() {
+        assertSameOutput(Component.text("§pA and §sB"));
+        assertSameOutput(Component.text("§+enabled §t/ §-disabled"));
+    }
+
+    @Test
+    void everyOccurrence() {
+        assertSameOutput(Component.text("Kissen §pKissen"));
+        assertSameOutput(Component.text("§pKissen§t: ").append(Component.text("hello Kissen")));
+    }
+
+    @Test
+    void nestedMarker() {
+        assertSameOutput(Component.text("Welcome ").append(Component.text("§sKissen")).append(Component.text(" to the server")));
+        assertSameOutput(Component.text("Welcome ").append(Component.text("§sKissen", NamedTextColor.DARK_PURPLE)));
+        assertSameOutput(Component.text("Your rank: ", ThemeProvider.general()).append(Component.text("§pAdmin")));
+    }
+
+    @Test
+    void hoverMarker() {
+        assertSameOutput(Component.text("§pKissen").hoverEvent(HoverEvent.showText(Component.text("Kissen is here"))));
+    }
+
+    @Test
+    void translatableMarker() {
+        assertSameOutput(Component.translatable("chat.type.text", Component.text("§pName")));
+        assertSameOutput(Component.text("Say: ").append(Component.translatable("key", Component.text("§+on"), Component.text("§-off"))));
+    }
+
+    @Test
+    void unresolvedMarker() {
+        assertSameOutput(Component.text("pX§pX"));
+        assertSameOutput(Component.text("§pKissen").append(Component.text(" says hi")));
+        assertSameOutput(Component.text("50§ off"));
+        assertSameOutput(Component.text("abc§"));
+    }
+
+    private static void assertSameComponent(@NotNull Component component) {
+        TextColor fallBack = THEME.getGeneralColor();
+        assertEquals(new LegacyResolver(THEME).transformComponent(component, fallBack), new ThemeTransformer(THEME).transform(component, fallBack));
+    }
+
+    private static void assertSameOutput(@NotNull Component component) {
+        TextColor fallBack = THEME.getGeneralColor();
+        String expected = render(new LegacyResolver(THEME).transformComponent(component, fallBack));
+        assertEquals(expected, render(new ThemeTransformer(THEME).transform(component, fallBack)));
+    }
+
+    /**
+     * Renders the specified component into its text, prefixing each run of characters with its effective style.
+     *
+     * @param component the component to render
+     * @return the rendered output
+     */
+    private static @NotNull String render(@NotNull Component component) {
+        StringBuilder builder = new StringBuilder();
+        render(component, Style.empty(), builder, new String[1]);
+        return builder.toString();
+    }
+
+    private static void render(@NotNull Component component, @NotNull Style parent, @NotNull StringBuilder builder, @NotNull String[] last) {
+        Style style = inherit(parent, component.style());
+        if (component instanceof TextComponent textComponent) {
+            append(textComponent.content(), style, builder, last);
+        } else if (component instanceof TranslatableComponent translatableComponent) {
+            append("{" + translatableComponent.key(), style, builder, last);
+            for (TranslationArgument argument : translatableComponent.arguments()) {
+                append("|", style, builder, last);
+                render(argument.asComponent(), style, builder, last);
+            }
+            append("}", style, builder, last);
+        }
+        component.children().forEach(child -> render(child, style, builder, last));
+    }
+
+    private static void append(@NotNull String text, @NotNull Style style, @NotNull StringBuilder builder, @NotNull String[] last) {
+        if (text.isEmpty()) {
+            return;
+        }
+
+        String description = describe(style);
+        if (!description.equals(last[0])) {
+            builder.append('[').append(description).append(']');
+            last[0] = description;
+        }
+        builder.append(text);
+    }
+
+    private static @NotNull Style inherit(@NotNull Style parent, @NotNull Style style) {
+        Style.Builder builder = parent.toBuilder();
+        Optional.ofNullable(style.color()).ifPresent(builder::color);
+        for (TextDecoration decoration : TextDecoration.values()) {
+            if (style.decoration(decoration) != TextDecoration.State.NOT_SET) {
+                builder.decoration(decoration, style.decoration(decoration));
+            }
+        }
+        Optional.ofNullable(style.clickEvent()).ifPresent(builder::clickEvent);
+        Optional.ofNullable(style.hoverEvent()).ifPresent(builder::hoverEvent);
+        Optional.ofNullable(style.insertion()).ifPresent(builder::insertion);
+        Optional.ofNullable(style.font()).ifPresent(builder::font);
+        return builder.build();
+    }
+
+    private static @NotNull String describe(@NotNull Style style) {
+        StringJoiner joiner = new StringJoiner(",");
+        joiner.add(style.color() == null ? "none":style.color().asHexString());
+        style.decorations().forEach((decoration, state) -> {
+            if (state == TextDecoration.State.TRUE) {
+                joiner.add(decoration.toString());
+            }
+        });
+        Optional.ofNullable(style.clickEvent()).ifPresent(clickEvent -> joiner.add(clickEvent.toString()));
+        HoverEvent<?> hoverEvent = style.hoverEvent();
+        if (hoverEvent != null && hoverEvent.action() == HoverEvent.Action.SHOW_TEXT) {
+            joiner.add("hover(" + render((Component) hoverEvent.value()) + ")");
+        } else if (hoverEvent != null) {
+            joiner.add(hoverEvent.toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Copy of the resolver {@link DefaultTheme} used before the {@link ThemeTransformer}.
+     */
+    private static final class LegacyResolver {
+
+        private final DefaultTheme theme;
+
+        private LegacyResolver(@NotNull DefaultTheme theme) {
+            this.theme = theme;
+        }
+
+        private @NotNull Component transformComponent(@NotNull ComponentLike component, @NotNull TextColor fallBack) {
+            return Component.empty().append(component).toBuilder().mapChildrenDeep(buildableComponent -> transformSpecifiedComponent(buildableComponent, fallBack)).asComponent();
+        }
+
+        private @NotNull BuildableComponent<?, ?> transformSpecifiedComponent(@NotNull BuildableComponent<?, ?> buildableComponent, @NotNull TextColor fallBack) {
+            if (buildableComponent instanceof TranslatableComponent translatableComponent) {
+
+                return transformTranslatableComponent(translatableComponent, fallBack);
+            }
+
+            buildableComponent = legacyColorCodeResolver(buildableComponent);
+            TextColor textColor = buildableComponent.color();
+            if (textColor!=null) {
+                return (BuildableComponent<?, ?>) buildableComponent.color(getPersonalColorByCode(textColor.value()));
+            }
+
+            return (BuildableComponent<?, ?>) buildableComponent.color(fallBack);
+        }
+
+        @NotNull
+        private TranslatableComponent transformTranslatableComponent(@NotNull TranslatableComponent translatableComponent, @NotNull TextColor fallBack) {
+            Function<TranslationArgument, Component> argumentMapper = argument -> transformComponent(argument, theme.highlightColor());
+            List<Component> transformedArgs = translatableComponent.arguments().stream().map(argumentMapper).toList();
+
+            TextColor textColor = Objects.requireNonNullElse(translatableComponent.color(), fallBack);
+            if (!textColor.equals(fallBack)) {
+                textColor = getPersonalColorByCode(textColor.value());
+            }
+            return translatableComponent.color(textColor).arguments(transformedArgs.toArray(new Component[0]));
+        }
+
+        @NotNull
+        private BuildableComponent<?, ?> legacyColorCodeResolver(@NotNull BuildableComponent<?, ?> buildableComponent) {
+            Map<String, TextColor> replacements = new HashMap<>();
+            String legacy = LegacyComponentSerializer.legacyAmpersand().serialize(buildableComponent);
+            for (String textPassage : legacy.split("§")) {
+                if (textPassage.length() > 1) {
+                    if (legacy.startsWith(textPassage) && !textPassage.startsWith("§")) {
+                        continue;
+                    }
+                    switch (textPassage.substring(0, 1).toLowerCase()) {
+                        case "p" -> replacements.put(textPassage.substring(1), theme.getPrimaryColor());
+                        case "s" -> replacements.put(textPassage.substring(1), theme.getSecondaryColor());
+                        case "t" -> replacements.put(textPassage.substring(1), theme.getGeneralColor());
+                        case "+" -> replacements.put(textPassage.substring(1), theme.getEnabledColor());
+                        case "-" -> replacements.put(textPassage.substring(1), theme.getDisabledColor());
+                    }
+                }
+            }
+
+            for (Map.Entry<String, TextColor> stringTextColorEntry : replacements.entrySet()) {
+                buildableComponent = (BuildableComponent<?, ?>) buildableComponent.replaceText(config -> {
+                    config.matchLiteral(stringTextColorEntry.getKey());
+                    config.replacement(Component.text(stringTextColorEntry.getKey()).color(stringTextColorEntry.getValue()));
+                });
+            }
+
+            return buildableComponent;
+        }
+
+        private @NotNull TextColor getPersonalColorByCode(int value) {
+            Map<TextColor, TextColor> colorMap = Map.of(ThemeProvider.primary(), theme.getPrimaryColor(), ThemeProvider.secondary(), theme.getSecondaryColor(), ThemeProvider.general(), theme.getGeneralColor(), ThemeProvider.enabled(), theme.getEnabledColor(), ThemeProvider.disabled(), theme.getDisabledColor());
+            TextColor color = TextColor.color(value);
+
+            return Optional.ofNullable(colorMap.get(color)).orElse(color);
+        }
+    }
+}
@@ -77,6 +77,7 @@ subprojects {
         filteringCharset = Charsets.UTF_8.name()
     }
     tasks.withType<Test> {
+        useJUnitPlatform()
         testLogging {
             showStackTraces = true
             exceptionFormat = TestExceptionFormat.FULL